@@ -0,0 +1,188 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.CharacterDataChangeEvent;
+import org.htmlunit.html.CharacterDataChangeListener;
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlAttributeChangeEvent;
+import org.htmlunit.html.HtmlAttributeChangeListener;
+import org.htmlunit.html.HtmlLink;
+import org.htmlunit.html.HtmlPage;
+import org.htmlunit.html.HtmlStyle;
+
+/**
+ * Signals the changes of a page that may change whether a single element is displayed
+ * or enabled, used to wait till the element can be interacted with.
+ * <p>
+ * Relevant are attribute changes of the element, its ancestors and its siblings, changes
+ * of the attributes used by style rules and states anywhere in the page (e.g. a class
+ * toggled on a sibling of an ancestor matched by {@code .open ~ nav button}), nodes added
+ * or removed as siblings, as content of the element or along its ancestors, and changes
+ * of the style sheets. Other changes elsewhere in the page don't wake up the wait, but
+ * every completed JavaScript job of the window does, it may have changed the style sheets
+ * through the CSSOM.
+ */
+final class ActionabilityWatcher implements DomChangeListener, HtmlAttributeChangeListener,
+        CharacterDataChangeListener {
+
+    // attributes changing the display or enabled state of other elements through selectors
+    private static final Set<String> PAGE_WIDE_ATTRIBUTES =
+            new HashSet<>(Arrays.asList("class", "style", "hidden", "disabled", "id"));
+
+    private final DomElement element_;
+    private final SgmlPage page_;
+    private final PageChangeSignal signal_ = new PageChangeSignal();
+    // set if the element or one of its ancestors was removed
+    private volatile boolean removed_;
+
+    /**
+     * Creates a new watcher; call {@link #start()} to receive changes.
+     *
+     * @param element the element
+     */
+    ActionabilityWatcher(final DomElement element) {
+        element_ = element;
+        page_ = element.getPage();
+    }
+
+    /**
+     * Starts listening for the changes of the page.
+     */
+    void start() {
+        page_.addDomChangeListener(this);
+        page_.addCharacterDataChangeListener(this);
+        if (page_ instanceof HtmlPage) {
+            ((HtmlPage) page_).addHtmlAttributeChangeListener(this);
+        }
+        signal_.observeJobs(page_.getEnclosingWindow());
+    }
+
+    /**
+     * Stops listening.
+     */
+    void stop() {
+        page_.removeDomChangeListener(this);
+        page_.removeCharacterDataChangeListener(this);
+        if (page_ instanceof HtmlPage) {
+            ((HtmlPage) page_).removeHtmlAttributeChangeListener(this);
+        }
+        signal_.stopObservingJobs(page_.getEnclosingWindow());
+    }
+
+    /**
+     * @return the signal of the relevant changes
+     */
+    PageChangeSignal getSignal() {
+        return signal_;
+    }
+
+    /**
+     * Returns whether the element or one of its ancestors was removed since the last call;
+     * only then the element has to be checked for staleness again.
+     *
+     * @return whether the element might have been detached
+     */
+    boolean checkRemoved() {
+        final boolean removed = removed_;
+        removed_ = false;
+        return removed;
+    }
+
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        if (isRelevant(event.getChangedNode(), event.getParentNode())) {
+            signal_.changed();
+        }
+    }
+
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        final DomNode node = event.getChangedNode();
+        if (isAncestorOrSelf(node, element_)) {
+            removed_ = true;
+            signal_.changed();
+        }
+        else if (isRelevant(node, event.getParentNode())) {
+            signal_.changed();
+        }
+    }
+
+    @Override
+    public void attributeAdded(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event);
+    }
+
+    @Override
+    public void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event);
+    }
+
+    @Override
+    public void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event);
+    }
+
+    @Override
+    public void characterDataChanged(final CharacterDataChangeEvent event) {
+        // the text of a style sheet
+        if (event.getCharacterData().getParentNode() instanceof HtmlStyle) {
+            signal_.changed();
+        }
+    }
+
+    private void attributeChanged(final HtmlAttributeChangeEvent event) {
+        final DomElement owner = event.getHtmlElement();
+        if (PAGE_WIDE_ATTRIBUTES.contains(event.getName())) {
+            if (!isAncestorOrSelf(owner, element_)) {
+                // HtmlUnit clears the cached styles of the owner's subtree only, not of the
+                // elements matched through sibling combinators
+                page_.clearComputedStylesUpToRoot(element_);
+            }
+            signal_.changed();
+        }
+        else if (owner.getParentNode() == element_.getParentNode() || isAncestorOrSelf(owner, element_)
+                || owner instanceof HtmlLink || owner instanceof HtmlStyle) {
+            signal_.changed();
+        }
+    }
+
+    private boolean isRelevant(final DomNode node, final DomNode parent) {
+        return node instanceof HtmlStyle || node instanceof HtmlLink || parent instanceof HtmlStyle
+                || parent == element_.getParentNode()
+                || isAncestorOrSelf(element_, parent)
+                || isAncestorOrSelf(node, element_);
+    }
+
+    private static boolean isAncestorOrSelf(final DomNode ancestor, final DomNode node) {
+        for (DomNode current = node; current != null; current = current.getParentNode()) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,163 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Locates elements by the value of a test id attribute, {@code data-testid} by default.
+ * <p>
+ * The {@link HtmlUnitDriver} answers these lookups from an index of the attribute values
+ * kept per page, without traversing the DOM. Other drivers use the equivalent CSS
+ * attribute selector.
+ *
+ * @author Ronald Brill
+ */
+public class ByTestId extends By {
+
+    /** The default attribute, {@code data-testid}. */
+    public static final String DEFAULT_ATTRIBUTE = "data-testid";
+
+    private final String attributeName_;
+    private final String testId_;
+
+    /**
+     * Locates the elements having the given value of the {@code data-testid} attribute.
+     *
+     * @param testId the test id
+     */
+    public ByTestId(final String testId) {
+        this(DEFAULT_ATTRIBUTE, testId);
+    }
+
+    /**
+     * Locates the elements having the given value of the given attribute.
+     *
+     * @param attributeName the name of the attribute, e.g. {@code data-test-id}
+     * @param testId the test id
+     */
+    public ByTestId(final String attributeName, final String testId) {
+        Objects.requireNonNull(attributeName, "Cannot find elements when the attribute name is null.");
+        Objects.requireNonNull(testId, "Cannot find elements when the test id is null.");
+        attributeName_ = attributeName.toLowerCase(Locale.ROOT);
+        testId_ = testId;
+    }
+
+    /**
+     * @param testId the test id
+     * @return a locator for the elements having the given value of the {@code data-testid} attribute
+     */
+    public static ByTestId testId(final String testId) {
+        return new ByTestId(testId);
+    }
+
+    /**
+     * @return the (lower case) name of the attribute
+     */
+    public String getAttributeName() {
+        return attributeName_;
+    }
+
+    /**
+     * @return the test id
+     */
+    public String getTestId() {
+        return testId_;
+    }
+
+    @Override
+    public List<WebElement> findElements(final SearchContext context) {
+        return context.findElements(By.cssSelector(toCssSelector()));
+    }
+
+    /**
+     * @return the CSS attribute selector matching the same elements
+     */
+    String toCssSelector() {
+        return "[" + escapeIdentifier(attributeName_) + "='" + escapeString(testId_) + "']";
+    }
+
+    /**
+     * Escapes a css identifier like {@code CSS.escape()}: control characters and leading
+     * digits as code points, other characters special to css with a backslash.
+     */
+    private static String escapeIdentifier(final String identifier) {
+        final StringBuilder escaped = new StringBuilder(identifier.length() + 8);
+        final int length = identifier.length();
+        for (int i = 0; i < length; i++) {
+            final char c = identifier.charAt(i);
+            final boolean digit = c >= '0' && c <= '9';
+            if (c == 0) {
+                escaped.append('\uFFFD');
+            }
+            else if (c <= 0x1F || c == 0x7F || (i == 0 && digit)
+                    || (i == 1 && digit && identifier.charAt(0) == '-')) {
+                escaped.append('\\').append(Integer.toHexString(c)).append(' ');
+            }
+            else if (i == 0 && c == '-' && length == 1) {
+                escaped.append("\\-");
+            }
+            else if (c >= 0x80 || c == '-' || c == '_' || digit
+                    || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                escaped.append(c);
+            }
+            else {
+                escaped.append('\\').append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Escapes the content of a single quoted css string: control characters as code
+     * points, the quote and the backslash with a backslash.
+     */
+    private static String escapeString(final String string) {
+        final StringBuilder escaped = new StringBuilder(string.length() + 8);
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c == 0) {
+                escaped.append('\uFFFD');
+            }
+            else if (c <= 0x1F || c == 0x7F) {
+                escaped.append('\\').append(Integer.toHexString(c)).append(' ');
+            }
+            else if (c == '\'' || c == '\\') {
+                escaped.append('\\').append(c);
+            }
+            else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public String toString() {
+        if (DEFAULT_ATTRIBUTE.equals(attributeName_)) {
+            return "By.testId: " + testId_;
+        }
+        return "By.testId (" + attributeName_ + "): " + testId_;
+    }
+}
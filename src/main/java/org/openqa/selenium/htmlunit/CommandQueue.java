@@ -0,0 +1,316 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serializes the commands of a single driver session.
+ * <p>
+ * Every command is started only after the previous one has completed; the hand
+ * over is done by chaining completion futures, nobody is polling. The caller of
+ * a command is released either when the command is done or when the command
+ * raises an alert, which has to be handled by the caller while the command is
+ * still parked.
+ * <p>
+ * A command may fail after its caller has already returned (the caller did not wait
+ * for it or was released by an alert); such a failure is kept and reported to the
+ * caller of the next command.
+ * <p>
+ * A page load releasing its caller early (see {@link #contentLoaded()}) is still
+ * building the DOM; the caller has to {@link #awaitPageLoad() wait} for it before
+ * reading the DOM. Only lookups may run {@link #read(Callable) in between}: while the
+ * loading command waits for the response of a subresource (see {@link #atSafePoint(Callable)})
+ * it doesn't touch the DOM, the lookups run then and the command continues after them.
+ */
+final class CommandQueue {
+
+    private final Object lock_ = new Object();
+    private CompletableFuture<Void> tail_ = CompletableFuture.completedFuture(null);
+    private volatile Command current_;
+    // the command whose caller was released before its page was loaded
+    private volatile Command loading_;
+    // failure of a command whose caller had already returned
+    private final AtomicReference<Throwable> unreported_ = new AtomicReference<>();
+
+    private final Object loadLock_ = new Object();
+    // guarded by loadLock_; whether the loading command is building the DOM right now
+    private boolean building_;
+    // guarded by loadLock_; the threads reading the DOM while the command is at a safe point
+    private final Set<Thread> readers_ = new HashSet<>();
+
+    /**
+     * Enqueues the given runnable; it will be executed using the given executor
+     * as soon as all previously submitted commands are done.
+     *
+     * @param runnable the command
+     * @param executor the executor to run the command
+     * @return the command
+     */
+    Command submit(final Runnable runnable, final Executor executor) {
+        final Command command = new Command(runnable);
+        final CompletableFuture<Void> previous;
+        synchronized (lock_) {
+            previous = tail_;
+            tail_ = command.done_;
+        }
+        previous.thenRun(() -> dispatch(command, executor));
+        return command;
+    }
+
+    private void dispatch(final Command command, final Executor executor) {
+        try {
+            executor.execute(command);
+        }
+        catch (final RejectedExecutionException e) {
+            command.complete(e);
+        }
+    }
+
+    /**
+     * Releases the caller of the currently running command (if any) because
+     * the command has raised an alert.
+     */
+    void alertRaised() {
+        final Command current = current_;
+        if (current != null) {
+            current.alerted_.complete(null);
+            current.released_.complete(null);
+            synchronized (loadLock_) {
+                loadLock_.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Releases the caller of the currently running command because the page loaded
+     * by the command is interactive; ignored if not called by the command's thread.
+     */
+    void contentLoaded() {
+        final Command current = current_;
+        if (current != null && current.thread_ == Thread.currentThread()) {
+            synchronized (loadLock_) {
+                loading_ = current;
+                building_ = true;
+            }
+            current.released_.complete(null);
+        }
+    }
+
+    /**
+     * Waits till the page load whose caller was released by {@link #contentLoaded()} is
+     * done or has raised an alert, which has to be handled first. Returns right away if
+     * there is no such load or if called by the loading command itself.
+     */
+    void awaitPageLoad() {
+        final Command loading = loading_;
+        if (loading != null && loading.thread_ != Thread.currentThread() && !isReading()) {
+            CompletableFuture.anyOf(loading.done_, loading.alerted_).join();
+        }
+    }
+
+    private boolean isReading() {
+        synchronized (loadLock_) {
+            return readers_.contains(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Runs a lookup of the DOM; while a page load whose caller was released is still pending,
+     * the lookup waits till the loading command is at a safe point (or has raised an alert)
+     * and keeps it there till the lookup is done.
+     *
+     * @param <T> the result type
+     * @param lookup the lookup
+     * @return the result of the lookup
+     * @throws Exception the exception of the lookup
+     */
+    <T> T read(final Callable<T> lookup) throws Exception {
+        final Thread thread = Thread.currentThread();
+        boolean interrupted = false;
+        synchronized (loadLock_) {
+            final Command loading = loading_;
+            if (loading == null || loading.thread_ == thread || readers_.contains(thread)) {
+                return lookup.call();
+            }
+            while (building_ && loading_ == loading && !loading.alerted_.isDone()) {
+                try {
+                    loadLock_.wait();
+                }
+                catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            readers_.add(thread);
+        }
+        try {
+            return lookup.call();
+        }
+        finally {
+            synchronized (loadLock_) {
+                readers_.remove(thread);
+                loadLock_.notifyAll();
+            }
+            if (interrupted) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs the given step of the loading command, e.g. waiting for a response, which
+     * doesn't touch the DOM; lookups may run meanwhile. The command continues after
+     * the lookups are done. Simply runs the step if not called by the loading command.
+     *
+     * @param <T> the result type
+     * @param step the step
+     * @return the result of the step
+     * @throws Exception the exception of the step
+     */
+    <T> T atSafePoint(final Callable<T> step) throws Exception {
+        final Command loading = loading_;
+        if (loading == null || loading.thread_ != Thread.currentThread()) {
+            return step.call();
+        }
+
+        synchronized (loadLock_) {
+            building_ = false;
+            loadLock_.notifyAll();
+        }
+        try {
+            return step.call();
+        }
+        finally {
+            boolean interrupted = false;
+            synchronized (loadLock_) {
+                while (!readers_.isEmpty()) {
+                    try {
+                        loadLock_.wait();
+                    }
+                    catch (final InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                building_ = true;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A single command, tracking its own outcome.
+     */
+    final class Command implements Runnable {
+        private final Runnable runnable_;
+        private final CompletableFuture<Void> done_ = new CompletableFuture<>();
+        private final CompletableFuture<Void> released_ = new CompletableFuture<>();
+        private final CompletableFuture<Void> alerted_ = new CompletableFuture<>();
+        private volatile Thread thread_;
+        // guarded by this
+        private Throwable failure_;
+        private boolean completed_;
+        private boolean abandoned_;
+
+        Command(final Runnable runnable) {
+            runnable_ = runnable;
+        }
+
+        @Override
+        public void run() {
+            thread_ = Thread.currentThread();
+            current_ = this;
+            Throwable failure = null;
+            try {
+                runnable_.run();
+            }
+            catch (final RuntimeException | Error e) {
+                failure = e;
+            }
+            finally {
+                current_ = null;
+                synchronized (loadLock_) {
+                    if (loading_ == this) {
+                        loading_ = null;
+                        building_ = false;
+                        loadLock_.notifyAll();
+                    }
+                }
+                complete(failure);
+            }
+        }
+
+        private void complete(final Throwable failure) {
+            synchronized (this) {
+                failure_ = failure;
+                completed_ = true;
+                if (failure != null && abandoned_) {
+                    unreported_.compareAndSet(null, failure);
+                }
+            }
+            // completed first, the released caller checks it to report the failure
+            done_.complete(null);
+            released_.complete(null);
+        }
+
+        /**
+         * Waits till the command is done or has raised an alert.
+         */
+        void awaitReleased() {
+            released_.join();
+        }
+
+        /**
+         * Rethrows the failure of a previous command that was not reported to its caller,
+         * or else the failure of this command if it is already done. If this command is
+         * still running, its failure will be reported by the next command.
+         */
+        void rethrowFailure() {
+            final Throwable failure;
+            synchronized (this) {
+                abandoned_ = !completed_;
+                failure = failure_;
+            }
+
+            final Throwable previous = unreported_.getAndSet(null);
+            if (previous != null) {
+                if (failure != null) {
+                    unreported_.compareAndSet(null, failure);
+                }
+                throwUnchecked(previous);
+            }
+            throwUnchecked(failure);
+        }
+    }
+
+    private static void throwUnchecked(final Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+}
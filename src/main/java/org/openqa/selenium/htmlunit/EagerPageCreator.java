@@ -0,0 +1,98 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.htmlunit.Page;
+import org.htmlunit.PageCreator;
+import org.htmlunit.TopLevelWindow;
+import org.htmlunit.WebResponse;
+import org.htmlunit.WebWindow;
+import org.htmlunit.corejs.javascript.BaseFunction;
+import org.htmlunit.corejs.javascript.Context;
+import org.htmlunit.corejs.javascript.Scriptable;
+import org.htmlunit.corejs.javascript.Undefined;
+import org.htmlunit.html.HtmlPage;
+import org.htmlunit.html.parser.HTMLParser;
+import org.htmlunit.javascript.host.event.Event;
+import org.htmlunit.javascript.host.event.EventTarget;
+
+/**
+ * Page creator supporting the eager page load strategy, wrapping the page creator
+ * of the web client.
+ * <p>
+ * The HTML pages of top level windows report when {@code DOMContentLoaded} is dispatched
+ * (after the listeners of the page) - that is when HtmlUnit starts loading the frames.
+ * Without JavaScript there are no listeners, the pages report as soon as they are parsed.
+ * Frames, the load event and everything after it are processed while the caller already
+ * continues; lookups run while the load waits for a response (see {@link EagerWebConnection}),
+ * everything else reading the DOM waits for the load to complete.
+ */
+class EagerPageCreator implements PageCreator, Serializable {
+
+    private final PageCreator delegate_;
+    private final transient Runnable contentLoaded_;
+
+    EagerPageCreator(final PageCreator delegate, final Runnable contentLoaded) {
+        delegate_ = delegate;
+        contentLoaded_ = contentLoaded;
+    }
+
+    @Override
+    public Page createPage(final WebResponse webResponse, final WebWindow webWindow) throws IOException {
+        final Page page = delegate_.createPage(webResponse, webWindow);
+        if (webWindow instanceof TopLevelWindow && page instanceof HtmlPage && contentLoaded_ != null) {
+            if (!webWindow.getWebClient().isJavaScriptEnabled()) {
+                contentLoaded_.run();
+                return page;
+            }
+
+            // parsed, but not yet initialized
+            final Object document = ((HtmlPage) page).getScriptableObject();
+            if (document instanceof EventTarget) {
+                ((EventTarget) document).addEventListener(Event.TYPE_DOM_DOCUMENT_LOADED,
+                        new ContentLoadedListener(contentLoaded_), false);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public HTMLParser getHtmlParser() {
+        return delegate_.getHtmlParser();
+    }
+
+    /**
+     * The {@code DOMContentLoaded} listener.
+     */
+    private static final class ContentLoadedListener extends BaseFunction {
+        private final transient Runnable contentLoaded_;
+
+        ContentLoadedListener(final Runnable contentLoaded) {
+            contentLoaded_ = contentLoaded;
+        }
+
+        @Override
+        public Object call(final Context cx, final Scriptable scope, final Scriptable thisObj, final Object[] args) {
+            contentLoaded_.run();
+            return Undefined.instance;
+        }
+    }
+}
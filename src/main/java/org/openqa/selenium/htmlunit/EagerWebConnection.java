@@ -0,0 +1,62 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+
+import org.htmlunit.WebConnection;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.corejs.javascript.Context;
+import org.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * Web connection supporting the eager page load strategy, wrapping the web connection
+ * of the web client.
+ * <p>
+ * While the loading command waits for the response of a subresource (e.g. a frame) it
+ * doesn't touch the DOM; the lookups of the released caller run then, see
+ * {@link CommandQueue#atSafePoint(java.util.concurrent.Callable)}. Requests of scripts
+ * (e.g. synchronous XMLHttpRequests) are no safe points, the script holds the page.
+ */
+class EagerWebConnection extends WebConnectionWrapper {
+
+    private final CommandQueue commandQueue_;
+
+    EagerWebConnection(final WebConnection webConnection, final CommandQueue commandQueue) {
+        super(webConnection);
+        commandQueue_ = commandQueue;
+    }
+
+    @Override
+    public WebResponse getResponse(final WebRequest request) throws IOException {
+        if (Context.getCurrentContext() != null) {
+            return super.getResponse(request);
+        }
+
+        try {
+            return commandQueue_.atSafePoint(() -> super.getResponse(request));
+        }
+        catch (final IOException | RuntimeException e) {
+            throw e;
+        }
+        catch (final Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
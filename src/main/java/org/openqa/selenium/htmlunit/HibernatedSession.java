@@ -0,0 +1,327 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.htmlunit.FormEncodingType;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.htmlunit.util.Cookie;
+import org.htmlunit.util.NameValuePair;
+import org.htmlunit.util.UrlUtils;
+
+/**
+ * The state of a hibernated driver session, see {@link HtmlUnitDriver#hibernate(Path)}.
+ * Only the data needed to rebuild the session by reloading the pages is kept; the
+ * DOM and the JavaScript state of the pages are not part of it.
+ * <p>
+ * The state is made of strings, numbers, lists and maps only; reading a file accepts
+ * nothing else, so a foreign file can't make us instantiate arbitrary classes.
+ */
+final class HibernatedSession implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // the only classes a session file may contain; the arrays are the ones
+    // ArrayList and HashMap check while reading their content
+    private static final Set<Class<?>> ALLOWED_CLASSES = Set.of(HibernatedSession.class,
+            WindowState.class, CookieState.class, RequestState.class,
+            ArrayList.class, HashMap.class, String.class, Long.class, Number.class,
+            Object[].class, Map.Entry[].class);
+    private static final int MAX_DEPTH = 10;
+
+    private final List<CookieState> cookies_ = new ArrayList<>();
+    private final HashMap<String, HashMap<String, String>> localStorage_ = new HashMap<>();
+    private final List<WindowState> windows_ = new ArrayList<>();
+    private int currentWindow_;
+
+    private long implicitWaitTimeout_;
+    private long scriptTimeout_;
+    private long pageLoadTimeout_;
+
+    /**
+     * @return the cookies
+     */
+    List<Cookie> getCookies() {
+        final List<Cookie> cookies = new ArrayList<>(cookies_.size());
+        for (final CookieState cookie : cookies_) {
+            cookies.add(cookie.toCookie());
+        }
+        return cookies;
+    }
+
+    /**
+     * Saves the given cookies.
+     *
+     * @param cookies the cookies
+     */
+    void setCookies(final Collection<Cookie> cookies) {
+        cookies_.clear();
+        for (final Cookie cookie : cookies) {
+            cookies_.add(new CookieState(cookie));
+        }
+    }
+
+    /**
+     * @return the local storage, the key is the origin
+     */
+    Map<String, ? extends Map<String, String>> getLocalStorage() {
+        return localStorage_;
+    }
+
+    /**
+     * Saves the local storage of an origin.
+     *
+     * @param origin the origin, {@code protocol://host}
+     * @param storage the local storage of the origin
+     */
+    void putLocalStorage(final String origin, final Map<String, String> storage) {
+        localStorage_.put(origin, new HashMap<>(storage));
+    }
+
+    /**
+     * @return the (modifiable) list of top level windows
+     */
+    List<WindowState> getWindows() {
+        return windows_;
+    }
+
+    /**
+     * @return the index of the current window
+     */
+    int getCurrentWindow() {
+        return currentWindow_;
+    }
+
+    /**
+     * @param currentWindow the index of the current window
+     */
+    void setCurrentWindow(final int currentWindow) {
+        currentWindow_ = currentWindow;
+    }
+
+    /**
+     * Saves the given timeouts.
+     *
+     * @param timeouts the timeouts
+     */
+    void setTimeouts(final HtmlUnitTimeouts timeouts) {
+        implicitWaitTimeout_ = timeouts.getImplicitWaitTimeout().toMillis();
+        scriptTimeout_ = timeouts.getScriptTimeout().toMillis();
+        pageLoadTimeout_ = timeouts.getPageLoadTimeout().toMillis();
+    }
+
+    /**
+     * Applies the saved timeouts.
+     *
+     * @param timeouts the timeouts to change
+     */
+    void applyTimeouts(final HtmlUnitTimeouts timeouts) {
+        timeouts.implicitlyWait(Duration.ofMillis(implicitWaitTimeout_))
+            .scriptTimeout(Duration.ofMillis(scriptTimeout_))
+            .pageLoadTimeout(Duration.ofMillis(pageLoadTimeout_));
+    }
+
+    /**
+     * Writes this session to the given file.
+     *
+     * @param file the file to write to
+     * @throws IOException in case of error
+     */
+    void write(final Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+                ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(this);
+        }
+    }
+
+    /**
+     * Reads a session written by {@link #write(Path)}.
+     *
+     * @param file the file to read
+     * @return the session
+     * @throws IOException in case of error, also if the file contains anything else
+     */
+    static HibernatedSession read(final Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+                ObjectInputStream objectIn = new ObjectInputStream(in)) {
+            objectIn.setObjectInputFilter(HibernatedSession::checkInput);
+            return (HibernatedSession) objectIn.readObject();
+        }
+        catch (final ClassNotFoundException | ClassCastException | InvalidClassException e) {
+            throw new IOException("No hibernated session found in '" + file + "'", e);
+        }
+    }
+
+    private static ObjectInputFilter.Status checkInput(final ObjectInputFilter.FilterInfo info) {
+        if (info.depth() > MAX_DEPTH) {
+            return ObjectInputFilter.Status.REJECTED;
+        }
+        final Class<?> clazz = info.serialClass();
+        if (clazz == null || ALLOWED_CLASSES.contains(clazz)) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+        return ObjectInputFilter.Status.REJECTED;
+    }
+
+    /**
+     * The state of a single top level window.
+     */
+    static final class WindowState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name_;
+        private final HashMap<String, String> sessionStorage_;
+        private RequestState request_;
+
+        WindowState(final String name, final Map<String, String> sessionStorage) {
+            name_ = name;
+            sessionStorage_ = new HashMap<>(sessionStorage);
+        }
+
+        /**
+         * @return the window name
+         */
+        String getName() {
+            return name_;
+        }
+
+        /**
+         * @return the session storage of the window
+         */
+        Map<String, String> getSessionStorage() {
+            return sessionStorage_;
+        }
+
+        /**
+         * @return the request of the current page, {@code null} for a blank window
+         * @throws MalformedURLException if the saved URL is invalid
+         */
+        WebRequest getRequest() throws MalformedURLException {
+            return request_ == null ? null : request_.toWebRequest();
+        }
+
+        /**
+         * @param request the request of the current page, {@code null} for a blank window
+         */
+        void setRequest(final WebRequest request) {
+            request_ = request == null ? null : new RequestState(request);
+        }
+    }
+
+    /**
+     * A cookie.
+     */
+    private static final class CookieState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name_;
+        private final String value_;
+        private final String domain_;
+        private final String path_;
+        private final Long expires_;
+        private final boolean secure_;
+        private final boolean httpOnly_;
+        private final String sameSite_;
+
+        CookieState(final Cookie cookie) {
+            name_ = cookie.getName();
+            value_ = cookie.getValue();
+            domain_ = cookie.getDomain();
+            path_ = cookie.getPath();
+            expires_ = cookie.getExpires() == null ? null : cookie.getExpires().getTime();
+            secure_ = cookie.isSecure();
+            httpOnly_ = cookie.isHttpOnly();
+            sameSite_ = cookie.getSameSite();
+        }
+
+        Cookie toCookie() {
+            return new Cookie(domain_, name_, value_, path_, expires_ == null ? null : new Date(expires_),
+                    secure_, httpOnly_, sameSite_);
+        }
+    }
+
+    /**
+     * The request of a page: URL, method, body or parameters and headers.
+     */
+    private static final class RequestState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // URLs are kept as strings; about:blank can't be deserialized as URL
+        private final String url_;
+        private final String method_;
+        private final String body_;
+        // names and values alternating
+        private final ArrayList<String> parameters_ = new ArrayList<>();
+        private final String encodingType_;
+        private final String charset_;
+        private final HashMap<String, String> headers_;
+
+        RequestState(final WebRequest request) {
+            url_ = request.getUrl().toExternalForm();
+            method_ = request.getHttpMethod().name();
+            body_ = request.getRequestBody();
+            for (final NameValuePair parameter : request.getRequestParameters()) {
+                parameters_.add(parameter.getName());
+                parameters_.add(parameter.getValue());
+            }
+            encodingType_ = request.getEncodingType().getName();
+            charset_ = request.getCharset().name();
+            headers_ = new HashMap<>(request.getAdditionalHeaders());
+        }
+
+        WebRequest toWebRequest() throws MalformedURLException {
+            final URL url = UrlUtils.toUrlUnsafe(url_);
+            final WebRequest request = new WebRequest(url, HttpMethod.valueOf(method_));
+            request.setEncodingType(FormEncodingType.getInstance(encodingType_));
+            request.setCharset(Charset.forName(charset_));
+            request.setAdditionalHeaders(new HashMap<>(headers_));
+            if (body_ != null) {
+                request.setRequestBody(body_);
+            }
+            else if (!parameters_.isEmpty()) {
+                final List<NameValuePair> parameters = new ArrayList<>();
+                for (int i = 0; i + 1 < parameters_.size(); i += 2) {
+                    parameters.add(new NameValuePair(parameters_.get(i), parameters_.get(i + 1)));
+                }
+                request.setRequestParameters(parameters);
+            }
+            return request;
+        }
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.openqa.selenium.htmlunit;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -49,6 +51,8 @@ public class HtmlUnitAlert implements Alert {
     private final Condition condition_ = lock_.newCondition();
     private WebWindow webWindow_;
     private UnexpectedAlertBehaviour unexpectedAlertBehaviour_ = UnexpectedAlertBehaviour.DISMISS_AND_NOTIFY;
+    private final Queue<QueuedAnswer> queuedAnswers_ = new ConcurrentLinkedQueue<>();
+    private volatile String inlineNotification_;
 
     HtmlUnitAlert(final HtmlUnitDriver driver) {
         driver_ = driver;
@@ -126,6 +130,14 @@ public void setAutoAccept(final boolean autoAccept) {
         this.quitting_ = autoAccept;
     }
 
+    UnexpectedAlertBehaviour getUnexpectedAlertBehaviour() {
+        return unexpectedAlertBehaviour_;
+    }
+
+    void setUnexpectedAlertBehaviour(final UnexpectedAlertBehaviour behaviour) {
+        unexpectedAlertBehaviour_ = behaviour;
+    }
+
     public void handleBrowserCapabilities(final Capabilities capabilities) {
         final UnexpectedAlertBehaviour behaviour = (UnexpectedAlertBehaviour) capabilities
                 .getCapability(CapabilityType.UNHANDLED_PROMPT_BEHAVIOUR);
@@ -196,6 +208,84 @@ boolean isLocked() {
         return holder_ != null;
     }
 
+    /**
+     * Queues an accept as answer for the next alert raised while the driver executes
+     * commands inline (see {@link HtmlUnitDriver#setInlineExecution(boolean)}).
+     *
+     * @param keysToSend the value returned by a prompt; {@code null} for the default value
+     */
+    public void queueAccept(final String keysToSend) {
+        queuedAnswers_.add(new QueuedAnswer(true, keysToSend));
+    }
+
+    /**
+     * Queues a dismiss as answer for the next alert raised while the driver executes
+     * commands inline (see {@link HtmlUnitDriver#setInlineExecution(boolean)}).
+     */
+    public void queueDismiss() {
+        queuedAnswers_.add(new QueuedAnswer(false, null));
+    }
+
+    void clearQueuedAnswers() {
+        queuedAnswers_.clear();
+        inlineNotification_ = null;
+    }
+
+    /**
+     * Resolves the current alert without waiting; there is no other thread to handle it
+     * when the commands are executed inline. The next queued answer is used, if there is
+     * none the {@link UnexpectedAlertBehaviour} decides ({@code IGNORE} dismisses).
+     */
+    void resolveInline() {
+        final AlertHolder holder = holder_;
+        if (holder == null) {
+            return;
+        }
+        final String text = getText();
+        holder_ = null;
+
+        final QueuedAnswer answer = queuedAnswers_.poll();
+        if (answer != null) {
+            if (answer.accept_) {
+                if (holder instanceof PromptHolder) {
+                    holder.sendKeys(answer.keysToSend_);
+                }
+                holder.accept();
+            }
+            return;
+        }
+
+        switch (unexpectedAlertBehaviour_) {
+            case ACCEPT:
+                holder.accept();
+                return;
+
+            case ACCEPT_AND_NOTIFY:
+                holder.accept();
+                break;
+
+            case DISMISS:
+            case IGNORE:
+                return;
+
+            default:
+                break;
+        }
+        if (inlineNotification_ == null) {
+            inlineNotification_ = text;
+        }
+    }
+
+    /**
+     * @return the text of the first alert resolved inline that has to be reported
+     *         since the last call, or {@code null}
+     */
+    String takeInlineNotification() {
+        final String text = inlineNotification_;
+        inlineNotification_ = null;
+        return text;
+    }
+
     public void ensureUnlocked() {
         if (isLocked()) {
             final String text = getText();
@@ -227,6 +317,16 @@ public void ensureUnlocked() {
         }
     }
 
+    private static final class QueuedAnswer {
+        private final boolean accept_;
+        private final String keysToSend_;
+
+        QueuedAnswer(final boolean accept, final String keysToSend) {
+            accept_ = accept;
+            keysToSend_ = keysToSend;
+        }
+    }
+
     private static class AlertHolder {
         private final String message_;
         private boolean accepted_;
@@ -28,31 +28,39 @@
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import javax.net.ssl.SSLHandshakeException;
 
 import org.htmlunit.BrowserVersion;
+import org.htmlunit.HttpWebConnection;
 import org.htmlunit.Page;
+import org.htmlunit.PageCreator;
 import org.htmlunit.ProxyConfig;
 import org.htmlunit.ScriptResult;
 import org.htmlunit.SgmlPage;
+import org.htmlunit.StorageHolder;
 import org.htmlunit.StringWebResponse;
 import org.htmlunit.TopLevelWindow;
 import org.htmlunit.UnexpectedPage;
@@ -60,6 +68,7 @@
 import org.htmlunit.WaitingRefreshHandler;
 import org.htmlunit.WebClient;
 import org.htmlunit.WebClientOptions;
+import org.htmlunit.WebConnection;
 import org.htmlunit.WebRequest;
 import org.htmlunit.WebResponse;
 import org.htmlunit.WebWindow;
@@ -77,6 +86,7 @@
 import org.htmlunit.html.HtmlElement;
 import org.htmlunit.html.HtmlPage;
 import org.htmlunit.javascript.HtmlUnitScriptable;
+import org.htmlunit.javascript.background.JavaScriptJobManager;
 import org.htmlunit.javascript.host.Element;
 import org.htmlunit.javascript.host.Location;
 import org.htmlunit.javascript.host.html.DocumentProxy;
@@ -87,13 +97,16 @@
 import org.openqa.selenium.By;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.InvalidSelectorException;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchSessionException;
 import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.NotFoundException;
 import org.openqa.selenium.Platform;
 import org.openqa.selenium.Proxy;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnhandledAlertException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
@@ -126,8 +139,6 @@
  */
 public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabilities, Interactive {
 
-    private static final int sleepTime = 200;
-
     private WebClient webClient_;
     private final HtmlUnitAlert alert_;
     private HtmlUnitWindow currentWindow_;
@@ -137,9 +148,12 @@ public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabil
     private AsyncScriptExecutor asyncScriptExecutor_;
     private PageLoadStrategy pageLoadStrategy_ = PageLoadStrategy.NORMAL;
     private final ElementsMap elementsMap_ = new ElementsMap();
-    private final Options options_;
+    // the origins of the pages loaded so far, by "protocol://host" like the local storage
+    private final Map<String, URL> storageOrigins_ = new ConcurrentHashMap<>();
+    private final HtmlUnitOptions options_;
 
     private final HtmlUnitElementFinder elementFinder_;
+    private final PageChangeSignal changeSignal_ = new PageChangeSignal();
     private HtmlUnitInputProcessor inputProcessor_ = new HtmlUnitInputProcessor(this);
 
     /** BROWSER_LANGUAGE_CAPABILITY = "browserLanguage". */
@@ -151,21 +165,85 @@ public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabil
     /** JAVASCRIPT_ENABLED = "javascriptEnabled". */
     public static final String JAVASCRIPT_ENABLED = "javascriptEnabled";
 
+    /**
+     * VIRTUAL_THREADS_CAPABILITY = "virtualThreads".
+     * Runs the commands (and therefore also the waits for alerts) on virtual threads
+     * instead of a cached pool of platform threads. Requires Java 21; on older
+     * runtimes the capability is ignored.
+     */
+    public static final String VIRTUAL_THREADS_CAPABILITY = "virtualThreads";
+
+    /**
+     * SHARED_EXECUTOR_CAPABILITY = "sharedExecutor".
+     * Runs the commands on the process-wide {@link HtmlUnitSharedExecutor} instead of a
+     * thread pool owned by this driver. If not set, {@link HtmlUnitSharedExecutor#isUsedByDefault()}
+     * decides. Takes precedence over {@link #VIRTUAL_THREADS_CAPABILITY}.
+     */
+    public static final String SHARED_EXECUTOR_CAPABILITY = "sharedExecutor";
+
+    /**
+     * INLINE_EXECUTION_CAPABILITY = "inlineExecution".
+     * Runs the commands on the calling thread; see {@link #setInlineExecution(boolean)}.
+     */
+    public static final String INLINE_EXECUTION_CAPABILITY = "inlineExecution";
+
+    /**
+     * IN_MEMORY_CLIPBOARD_CAPABILITY = "inMemoryClipboard".
+     * Uses a clipboard private to this driver instead of the system clipboard; this
+     * avoids AWT completely and works also for headless environments.
+     */
+    public static final String IN_MEMORY_CLIPBOARD_CAPABILITY = "inMemoryClipboard";
+
+    /**
+     * JAVASCRIPT_QUIESCENCE_TIMEOUT_CAPABILITY = "javaScriptQuiescenceTimeout".
+     * The number of milliseconds {@link #get(String)}, clicks and submits wait for the
+     * background JavaScript to settle, see {@link #waitForJavaScriptQuiescence(Duration)}.
+     */
+    public static final String JAVASCRIPT_QUIESCENCE_TIMEOUT_CAPABILITY = "javaScriptQuiescenceTimeout";
+
+    /**
+     * ELEMENT_INDEX_CAPABILITY = "elementIndex".
+     * Answers tag name and class name lookups from indexes maintained per page,
+     * see {@link #getElementIndex()}.
+     */
+    public static final String ELEMENT_INDEX_CAPABILITY = "elementIndex";
+
+    /**
+     * PARALLEL_FIND_CAPABILITY = "parallelFind".
+     * Searches large static pages in parallel, see {@link #setParallelFind(boolean)}.
+     */
+    public static final String PARALLEL_FIND_CAPABILITY = "parallelFind";
+
+    /**
+     * FAIL_FAST_IMPLICIT_WAIT_CAPABILITY = "failFastImplicitWait".
+     * Ends implicit waits as soon as the page can't change any longer,
+     * see {@link #setFailFastImplicitWait(boolean)}.
+     */
+    public static final String FAIL_FAST_IMPLICIT_WAIT_CAPABILITY = "failFastImplicitWait";
+
     private WebClient webClient;
 
 
 
     /**
-     * The Lock for the {@link #mainCondition_}, which waits at the end of
-     * {@link #runAsync(Runnable)} till either and alert is triggered, or
-     * {@link Runnable} finishes.
+     * Serializes the commands started by {@link #runAsync(Runnable)}; the caller
+     * waits till either an alert is triggered, or the {@link Runnable} finishes.
      */
-    private final Lock conditionLock_ = new ReentrantLock();
-    private final Condition mainCondition_ = conditionLock_.newCondition();
-    private boolean runAsyncRunning_;
-    private RuntimeException exception_;
-    private final ExecutorService defaultExecutor_;
+    private final CommandQueue commandQueue_ = new CommandQueue();
+    private ExecutorService defaultExecutor_;
     private Executor executor_;
+    private boolean virtualThreads_;
+    private volatile boolean inlineExecution_;
+    // the thread running the current inline command
+    private volatile Thread inlineThread_;
+    private Duration javaScriptQuiescenceTimeout_;
+    private final HtmlUnitElementIndex elementIndex_ = new HtmlUnitElementIndex();
+    private boolean parallelFind_;
+    private boolean failFastImplicitWait_;
+    // implicit waits are suspended while evaluating the condition of await()
+    private boolean awaiting_;
+    private final AtomicLong failFastCount_ = new AtomicLong();
+    private final AtomicLong savedWaitMillis_ = new AtomicLong();
 
 
     private ProxyConfigurationManager proxyConfigurationManager=new ProxyConfigurationManager();
@@ -204,7 +282,7 @@ public HtmlUnitDriver(final boolean enableJavascript) {
      * @param enableJavascript whether to enable JavaScript support or not
      */
     public HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascript) {
-        this(version, enableJavascript, null);
+        this(version, enableJavascript, null, null);
 
         modifyWebClient(webClient_);
     }
@@ -221,9 +299,18 @@ public HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascri
     public HtmlUnitDriver(final Capabilities capabilities) {
         this(BrowserVersionDeterminer.determine(capabilities),
                 capabilities.getCapability(JAVASCRIPT_ENABLED) == null || capabilities.is(JAVASCRIPT_ENABLED),
-                Proxy.extractFrom(capabilities));
+                Proxy.extractFrom(capabilities),
+                capabilities);
 
         setDownloadImages(capabilities.is(DOWNLOAD_IMAGES_CAPABILITY));
+        setInlineExecution(capabilities.is(INLINE_EXECUTION_CAPABILITY));
+        elementIndex_.setEnabled(capabilities.is(ELEMENT_INDEX_CAPABILITY));
+        setParallelFind(capabilities.is(PARALLEL_FIND_CAPABILITY));
+        setFailFastImplicitWait(capabilities.is(FAIL_FAST_IMPLICIT_WAIT_CAPABILITY));
+        final Object quiescenceTimeout = capabilities.getCapability(JAVASCRIPT_QUIESCENCE_TIMEOUT_CAPABILITY);
+        if (quiescenceTimeout != null) {
+            setJavaScriptQuiescenceTimeout(Duration.ofMillis(Long.parseLong(quiescenceTimeout.toString())));
+        }
 
         if (alert_ != null) {
             alert_.handleBrowserCapabilities(capabilities);
@@ -250,7 +337,8 @@ public HtmlUnitDriver(final Capabilities desiredCapabilities, final Capabilities
         this(new DesiredCapabilities(desiredCapabilities, requiredCapabilities));
     }
 
-    private HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascript, final Proxy proxy) {
+    private HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascript, final Proxy proxy,
+            final Capabilities capabilities) {
         webClient_ = newWebClient(version);
 
         final WebClientOptions clientOptions = webClient_.getOptions();
@@ -264,18 +352,35 @@ private HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascr
         proxyConfigurationManager.setProxySettings(proxy);
 
         webClient_.setRefreshHandler(new WaitingRefreshHandler());
-        webClient_.setClipboardHandler(new AwtClipboardHandler());
+        if (capabilities != null && capabilities.is(IN_MEMORY_CLIPBOARD_CAPABILITY)) {
+            webClient_.setClipboardHandler(new InMemoryClipboardHandler());
+        }
+        else {
+            webClient_.setClipboardHandler(new AwtClipboardHandler());
+        }
 
         elementFinder_ = new HtmlUnitElementFinder();
 
         alert_ = new HtmlUnitAlert(this);
         currentWindow_ = new HtmlUnitWindow(webClient_.getCurrentWindow());
 
-        defaultExecutor_ = Executors.newCachedThreadPool();
-        executor_ = defaultExecutor_;
+        boolean sharedExecutor = HtmlUnitSharedExecutor.isUsedByDefault();
+        if (capabilities != null && capabilities.getCapability(SHARED_EXECUTOR_CAPABILITY) != null) {
+            sharedExecutor = capabilities.is(SHARED_EXECUTOR_CAPABILITY);
+        }
+        if (sharedExecutor) {
+            executor_ = HtmlUnitSharedExecutor.getInstance();
+        }
+        // the default executor is created on demand, see getExecutor()
+        virtualThreads_ = capabilities != null && capabilities.is(VIRTUAL_THREADS_CAPABILITY);
+
+        // track the JavaScript jobs of the initial window from the first page on
+        for (final WebWindow window : webClient_.getWebWindows()) {
+            JobCompletionTracker.of(window);
+        }
 
         // Now put us on the home page, like a real browser
-        get(clientOptions.getHomePage());
+        loadBlankPage();
 
         options_ = new HtmlUnitOptions(this);
         targetLocator_ = new HtmlUnitTargetLocator(this);
@@ -283,6 +388,7 @@ private HtmlUnitDriver(final BrowserVersion version, final boolean enableJavascr
         webClient_.addWebWindowListener(new WebWindowListener() {
             @Override
             public void webWindowOpened(final WebWindowEvent webWindowEvent) {
+                JobCompletionTracker.of(webWindowEvent.getWebWindow());
                 if (webWindowEvent.getWebWindow() instanceof TopLevelWindow) {
                     // use the first top level window we are getting aware of
                     if (currentWindow_ == null && webClient_.getTopLevelWindows().size() == 1) {
@@ -294,6 +400,10 @@ public void webWindowOpened(final WebWindowEvent webWindowEvent) {
             @Override
             public void webWindowContentChanged(final WebWindowEvent event) {
                 elementsMap_.remove(event.getOldPage());
+                changeSignal_.changed();
+                if (event.getNewPage() != null) {
+                    rememberStorageOrigin(event.getNewPage().getUrl());
+                }
                 if (event.getWebWindow() != currentWindow_.getWebWindow()) {
                     return;
                 }
@@ -341,65 +451,67 @@ boolean isProcessAlert() {
             asyncScriptExecutor_.alertTriggered(text);
             return false;
         }
-        conditionLock_.lock();
-        try {
-            mainCondition_.signal();
-        }
-        finally {
-            conditionLock_.unlock();
+        // alerts of background jobs are handled like without inline execution
+        if (inlineExecution_ && inlineThread_ == Thread.currentThread()) {
+            alert_.resolveInline();
+            return false;
         }
+        commandQueue_.alertRaised();
         return true;
     }
 
     protected void runAsync(final Runnable r) {
-        final boolean loadStrategyWait = pageLoadStrategy_ != PageLoadStrategy.NONE;
-
-        if (loadStrategyWait) {
-            while (runAsyncRunning_) {
-                try {
-                    Thread.sleep(10);
-                }
-                catch (final InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            conditionLock_.lock();
-            runAsyncRunning_ = true;
-        }
-
-        exception_ = null;
-        final Runnable wrapped = () -> {
+        if (inlineExecution_) {
+            final Thread previous = inlineThread_;
+            inlineThread_ = Thread.currentThread();
             try {
                 r.run();
             }
             catch (final RuntimeException e) {
-                exception_ = e;
+                alert_.takeInlineNotification();
+                throw e;
             }
             finally {
-                conditionLock_.lock();
-                try {
-                    runAsyncRunning_ = false;
-                    mainCondition_.signal();
-                }
-                finally {
-                    conditionLock_.unlock();
-                }
+                inlineThread_ = previous;
             }
-        };
-        executor_.execute(wrapped);
 
-        if (loadStrategyWait && this.runAsyncRunning_) {
-            mainCondition_.awaitUninterruptibly();
-            conditionLock_.unlock();
+            final String text = alert_.takeInlineNotification();
+            if (text != null) {
+                throw new UnhandledAlertException("Unexpected alert found", text);
+            }
+            return;
+        }
+
+        if (pageLoadStrategy_ == PageLoadStrategy.EAGER) {
+            installEagerLoading();
+        }
+        final CommandQueue.Command command = commandQueue_.submit(r, getExecutor());
+        if (pageLoadStrategy_ != PageLoadStrategy.NONE) {
+            command.awaitReleased();
         }
+        command.rethrowFailure();
+    }
 
-        if (exception_ != null) {
-            throw exception_;
+    /**
+     * Wraps the page creator of the web client (once) to hand control back to the caller
+     * as soon as a page is interactive, and the web connection to let lookups run while
+     * the subresources are loaded; a page creator or connection set later by the user is
+     * wrapped by the next command.
+     */
+    private void installEagerLoading() {
+        final PageCreator pageCreator = getWebClient().getPageCreator();
+        if (!(pageCreator instanceof EagerPageCreator)) {
+            getWebClient().setPageCreator(new EagerPageCreator(pageCreator, commandQueue_::contentLoaded));
+        }
+        final WebConnection connection = getWebClient().getWebConnection();
+        if (!(connection instanceof EagerWebConnection)) {
+            getWebClient().setWebConnection(new EagerWebConnection(connection, commandQueue_));
         }
     }
 
     public void click(final DomElement element, final boolean directClick) {
         runAsync(() -> mouse_.click(element, directClick));
+        awaitJavaScriptQuiescence();
     }
 
     public void doubleClick(final DomElement element) {
@@ -420,6 +532,7 @@ public void mouseDown(final DomElement element) {
 
     public void submit(final HtmlUnitWebElement element) {
         runAsync(element::submitImpl);
+        awaitJavaScriptQuiescence();
     }
 
     public void sendKeys(final HtmlUnitWebElement element, final CharSequence... value) {
@@ -461,6 +574,179 @@ public HtmlUnitAlert getAlert() {
         return alert_;
     }
 
+    /**
+     * Enables or disables the inline execution of commands. Inline commands run on
+     * the calling thread without any thread hand over, but alerts can't be handled
+     * while the command is still running. Therefore every alert raised by the command
+     * is resolved right away, using the answers queued with {@link HtmlUnitAlert#queueAccept(String)}
+     * or {@link HtmlUnitAlert#queueDismiss()}; if there is none the
+     * {@link org.openqa.selenium.UnexpectedAlertBehaviour} decides, reporting
+     * the alert by an {@link UnhandledAlertException} at the end of the command if
+     * requested. Alerts raised by background JavaScript jobs are not resolved inline,
+     * they are handled by the next command as usual.
+     *
+     * @param inlineExecution whether to run the commands on the calling thread
+     */
+    public void setInlineExecution(final boolean inlineExecution) {
+        inlineExecution_ = inlineExecution;
+    }
+
+    /**
+     * @return whether the commands are executed on the calling thread
+     */
+    public boolean isInlineExecution() {
+        return inlineExecution_;
+    }
+
+    /**
+     * Sets the time {@link #get(String)}, clicks and submits wait for the background
+     * JavaScript to settle before returning, see {@link #waitForJavaScriptQuiescence(Duration)}.
+     * The wait is skipped if the page load strategy is {@link PageLoadStrategy#NONE}.
+     *
+     * @param timeout the maximum time to wait; {@code null} or zero to not wait at all
+     */
+    public void setJavaScriptQuiescenceTimeout(final Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            javaScriptQuiescenceTimeout_ = null;
+        }
+        else {
+            javaScriptQuiescenceTimeout_ = timeout;
+        }
+    }
+
+    /**
+     * @return the time commands wait for the background JavaScript to settle;
+     *         {@code null} if they don't wait
+     */
+    public Duration getJavaScriptQuiescenceTimeout() {
+        return javaScriptQuiescenceTimeout_;
+    }
+
+    /**
+     * The tag name and class name index of this driver; disabled by default. If enabled,
+     * {@link By#tagName(String)} and {@link By#className(String)} lookups are answered
+     * from indexes kept up to date with every change of the DOM instead of traversing
+     * the page.
+     *
+     * @return the index
+     */
+    public HtmlUnitElementIndex getElementIndex() {
+        return elementIndex_;
+    }
+
+    /**
+     * The finder evaluating the locators of this driver; use it to register implementations
+     * for custom {@link By} classes, see
+     * {@link HtmlUnitElementFinder#register(Class, HtmlUnitElementFinder.HtmlUnitElementLocator)}.
+     *
+     * @return the element finder
+     */
+    public HtmlUnitElementFinder getElementFinder() {
+        return elementFinder_;
+    }
+
+    /**
+     * Enables or disables the parallel search of large static pages; disabled by default.
+     * If enabled, {@link #findElements(By)} by tag name, class name, CSS selector or a
+     * simple XPath expression like {@code //td[@class='total']} matches the sibling
+     * subtrees of the page in parallel. This is only done if JavaScript is disabled and
+     * the page is completely loaded and has at least some ten thousand elements; the
+     * page must not be modified by other threads while searching.
+     *
+     * @param parallelFind whether to search large static pages in parallel
+     */
+    public void setParallelFind(final boolean parallelFind) {
+        parallelFind_ = parallelFind;
+    }
+
+    /**
+     * @return whether large static pages are searched in parallel
+     * @see #setParallelFind(boolean)
+     */
+    public boolean isParallelFind() {
+        return parallelFind_;
+    }
+
+    /**
+     * Enables or disables ending implicit waits early; disabled by default.
+     * <p>
+     * If enabled, an implicit wait gives up as soon as the locator (or condition) failed
+     * on a page that can't change any longer: every page is completely loaded and no
+     * JavaScript job (timers, XMLHttpRequest callbacks...) is pending in any window.
+     * Negative checks like "no error message shown" then don't cost the whole implicit
+     * timeout. Changes made by other threads using the {@link WebClient} directly are
+     * not expected.
+     *
+     * @param failFast whether to end implicit waits on quiescent pages
+     * @see #getImplicitWaitStatistics()
+     */
+    public void setFailFastImplicitWait(final boolean failFast) {
+        failFastImplicitWait_ = failFast;
+    }
+
+    /**
+     * @return whether implicit waits end early on quiescent pages
+     * @see #setFailFastImplicitWait(boolean)
+     */
+    public boolean isFailFastImplicitWait() {
+        return failFastImplicitWait_;
+    }
+
+    /**
+     * @return a snapshot of the implicit waits ended early so far
+     * @see #setFailFastImplicitWait(boolean)
+     */
+    public ImplicitWaitStatistics getImplicitWaitStatistics() {
+        return new ImplicitWaitStatistics(failFastCount_.get(), savedWaitMillis_.get());
+    }
+
+    /**
+     * Waits till no JavaScript job (timers, XMLHttpRequest callbacks...) is pending in
+     * any window any longer. The wait is done by the job managers of the windows, so
+     * this returns as soon as the last job is done.
+     * <p>
+     * Please note that pages using {@code setInterval()} never settle. Jobs blocked by
+     * an open alert don't finish till the alert is handled; therefore this returns
+     * right away if an alert is open.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if all jobs are done; {@code false} if jobs are still pending
+     *         after the timeout or an alert is open
+     */
+    public boolean waitForJavaScriptQuiescence(final Duration timeout) {
+        final long end = System.currentTimeMillis() + timeout.toMillis();
+        boolean quiet;
+        do {
+            if (alert_.isLocked()) {
+                return false;
+            }
+
+            // jobs of one window might add jobs to another one, so we are done
+            // only after a complete pass without any job
+            quiet = true;
+            for (final WebWindow window : new ArrayList<>(getWebClient().getWebWindows())) {
+                final JavaScriptJobManager jobManager = window.getJobManager();
+                if (jobManager != null && jobManager.getJobCount() > 0) {
+                    quiet = false;
+                    final long remaining = end - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    jobManager.waitForJobs(remaining);
+                }
+            }
+        }
+        while (!quiet);
+        return true;
+    }
+
+    private void awaitJavaScriptQuiescence() {
+        final Duration timeout = javaScriptQuiescenceTimeout_;
+        if (timeout != null && pageLoadStrategy_ != PageLoadStrategy.NONE) {
+            waitForJavaScriptQuiescence(timeout);
+        }
+    }
+
     public ElementsMap getElementsMap() {
         return elementsMap_;
     }
@@ -479,13 +765,21 @@ public void setCurrentWindow(final WebWindow window) {
      *
      * @param executor the {@link Executor} to use
      */
-    public void setExecutor(final Executor executor) {
+    public synchronized void setExecutor(final Executor executor) {
         if (executor == null) {
             throw new IllegalArgumentException("executor cannot be null");
         }
         this.executor_ = executor;
     }
 
+    private synchronized Executor getExecutor() {
+        if (executor_ == null) {
+            defaultExecutor_ = virtualThreads_ ? VirtualThreads.newExecutor() : Executors.newCachedThreadPool();
+            executor_ = defaultExecutor_;
+        }
+        return executor_;
+    }
+
 
 
     @Override
@@ -511,11 +805,28 @@ public void get(final String url) {
         }
 
         runAsync(() -> get(fullUrl));
+        awaitJavaScriptQuiescence();
     }
 
     /**
-     * Allows HtmlUnit's about:blank to be loaded in the constructor, and may be
-     * useful for other tests?
+     * Loads the empty about:blank page into the current window. The page is built from
+     * an empty response right away, the same one {@link WebClient#getPage(WebWindow, WebRequest)}
+     * would create, without preparing a request; the empty page can't raise an alert,
+     * so there is no need to switch threads either.
+     */
+    private void loadBlankPage() {
+        try {
+            webClient_.loadWebResponseInto(new StringWebResponse("", UrlUtils.URL_ABOUT_BLANK),
+                    currentWindow_.getWebWindow());
+        }
+        catch (final IOException e) {
+            throw new WebDriverException(e);
+        }
+        resetKeyboardAndMouseState();
+    }
+
+    /**
+     * Loads the given URL into the top level window of the current window.
      *
      * @param fullUrl The URL to visit
      */
@@ -598,53 +909,162 @@ public String getTitle() {
     @Override
     public WebElement findElement(final By by) {
         alert_.ensureUnlocked();
-        return implicitlyWaitFor(() -> elementFinder_.findElement(this, by));
+        return implicitlyWaitFor(null, () -> elementFinder_.findElement(this, by), Objects::nonNull);
     }
 
     @Override
     public List<WebElement> findElements(final By by) {
-        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
-        if (implicitWait < sleepTime) {
-            return elementFinder_.findElements(this, by);
+        return implicitlyWaitFor(null, () -> elementFinder_.findElements(this, by), found -> !found.isEmpty());
+    }
+
+    /**
+     * Waits till the given condition is met, e.g. one of the
+     * {@link org.openqa.selenium.support.ui.ExpectedConditions}.
+     * <p>
+     * Unlike a {@link org.openqa.selenium.support.ui.WebDriverWait} this doesn't poll: the
+     * condition is evaluated again as soon as the DOM of the current page changed, a
+     * JavaScript job of the current window completed (every single run of an interval)
+     * or a window got new content, and never otherwise. Implicit waits are suspended
+     * while evaluating the condition.
+     * <p>
+     * The condition is met if it returns something else than {@code null} or {@code false};
+     * {@link NotFoundException}s and {@link StaleElementReferenceException}s thrown by the
+     * condition are ignored.
+     *
+     * @param <T> the result type of the condition
+     * @param condition the condition
+     * @param timeout the maximum time to wait
+     * @return the result of the condition
+     * @throws TimeoutException if the condition is not met within the timeout
+     */
+    public <T> T await(final Function<? super WebDriver, T> condition, final Duration timeout) {
+        alert_.ensureUnlocked();
+
+        final long start = System.currentTimeMillis();
+        final long end = start + timeout.toMillis();
+        final boolean awaiting = awaiting_;
+        awaiting_ = true;
+        try {
+            RuntimeException lastException = null;
+            while (true) {
+                final long changes = observeChanges();
+                try {
+                    final T result = condition.apply(this);
+                    if (result != null && !Boolean.FALSE.equals(result)) {
+                        return result;
+                    }
+                }
+                catch (final NotFoundException | StaleElementReferenceException e) {
+                    lastException = e;
+                }
+
+                if (System.currentTimeMillis() >= end || !awaitChange(changes, end)) {
+                    throw new TimeoutException("Expected condition failed: " + condition
+                            + " (tried for " + (System.currentTimeMillis() - start) + " ms)", lastException);
+                }
+            }
         }
+        finally {
+            awaiting_ = awaiting;
+        }
+    }
 
-        final long end = System.currentTimeMillis() + implicitWait;
-        List<WebElement> found;
-        do {
-            found = elementFinder_.findElements(this, by);
-            if (!found.isEmpty()) {
+    /**
+     * Finds the elements of several locators at once, e.g. to initialize all the fields of
+     * a page object. Locators by tag name, class name, CSS selector and simple XPath
+     * expressions share a single traversal of the page; the implicit wait is done once
+     * for the whole batch, till every locator has found at least one element or the
+     * timeout is reached.
+     *
+     * @param locators the locators by key
+     * @return the elements found by key, in the order of the given map; empty lists for
+     *         locators without any match
+     */
+    public Map<String, List<WebElement>> findAll(final Map<String, By> locators) {
+        alert_.ensureUnlocked();
+
+        final long end = System.currentTimeMillis() + getImplicitWaitMillis();
+        final Map<String, List<WebElement>> found = new LinkedHashMap<>();
+        Map<String, By> pending = locators;
+        while (true) {
+            final long changes = observeChanges();
+            final Map<String, By> notFound = new LinkedHashMap<>();
+            for (final Entry<String, List<WebElement>> entry : elementFinder_.findAll(this, pending).entrySet()) {
+                // replacing a value keeps the position of the key
+                found.put(entry.getKey(), entry.getValue());
+                if (entry.getValue().isEmpty()) {
+                    notFound.put(entry.getKey(), locators.get(entry.getKey()));
+                }
+            }
+
+            if (notFound.isEmpty() || System.currentTimeMillis() >= end) {
+                return found;
+            }
+            pending = notFound;
+            if (!waitForChange(changes, end)) {
                 return found;
             }
-            sleepQuietly(sleepTime);
         }
-        while (System.currentTimeMillis() < end);
+    }
 
-        return found;
+    /**
+     * Counts the elements found by the given locator. No {@link WebElement} is created for
+     * the elements found; there is no implicit wait.
+     *
+     * @param by the locator
+     * @return the number of elements found
+     */
+    public int count(final By by) {
+        alert_.ensureUnlocked();
+        return elementFinder_.count(this, by);
     }
 
-    public WebElement findElement(final HtmlUnitWebElement element, final By by) {
+    /**
+     * Checks if the given locator finds any element, stopping at the first match if the
+     * locator allows. No {@link WebElement} is created; there is no implicit wait.
+     *
+     * @param by the locator
+     * @return whether an element was found
+     */
+    public boolean exists(final By by) {
         alert_.ensureUnlocked();
-        return implicitlyWaitFor(() -> elementFinder_.findElement(element, by));
+        return elementFinder_.exists(this, by);
     }
 
-    public List<WebElement> findElements(final HtmlUnitWebElement element, final By by) {
-        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
-        if (implicitWait < sleepTime) {
-            return elementFinder_.findElements(element, by);
-        }
+    public int count(final HtmlUnitWebElement element, final By by) {
+        alert_.ensureUnlocked();
+        return elementFinder_.count(element, by);
+    }
 
-        final long end = System.currentTimeMillis() + implicitWait;
-        List<WebElement> found;
-        do {
-            found = elementFinder_.findElements(element, by);
-            if (!found.isEmpty()) {
-                return found;
-            }
-            sleepQuietly(sleepTime);
-        }
-        while (System.currentTimeMillis() < end);
+    public boolean exists(final HtmlUnitWebElement element, final By by) {
+        alert_.ensureUnlocked();
+        return elementFinder_.exists(element, by);
+    }
 
-        return found;
+    /**
+     * Finds the first descendant of the given element, waiting implicitly. The element is
+     * checked for staleness before every try; a stale element fails right away.
+     *
+     * @param element the element to search in
+     * @param by the locator
+     * @return the element found
+     */
+    public WebElement findElement(final HtmlUnitWebElement element, final By by) {
+        alert_.ensureUnlocked();
+        return implicitlyWaitFor(element, () -> elementFinder_.findElement(element, by), Objects::nonNull);
+    }
+
+    /**
+     * Finds the descendants of the given element, waiting implicitly till at least one is
+     * found. The element is checked for staleness before every try; a stale element fails
+     * right away.
+     *
+     * @param element the element to search in
+     * @param by the locator
+     * @return the elements found
+     */
+    public List<WebElement> findElements(final HtmlUnitWebElement element, final By by) {
+        return implicitlyWaitFor(element, () -> elementFinder_.findElements(element, by), found -> !found.isEmpty());
     }
 
     @Override
@@ -687,7 +1107,14 @@ public void quit() {
             webClient_.close();
             webClient_ = null;
         }
-        defaultExecutor_.shutdown();
+        shutdownDefaultExecutor();
+    }
+
+    private synchronized void shutdownDefaultExecutor() {
+        // the shared executor outlives the drivers
+        if (defaultExecutor_ != null) {
+            defaultExecutor_.shutdown();
+        }
     }
 
     @Override
@@ -1037,52 +1464,64 @@ public boolean isAcceptInsecureCerts() {
     }
 
     protected <X> X implicitlyWaitFor(final Callable<X> condition) {
-        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
+        return implicitlyWaitFor(null, condition, result -> result != null && !Boolean.FALSE.equals(result));
+    }
 
-        if (implicitWait < sleepTime) {
-            try {
-                return condition.call();
-            }
-            catch (final RuntimeException e) {
-                throw e;
-            }
-            catch (final Exception e) {
-                throw new WebDriverException(e);
-            }
+    long getImplicitWaitMillis() {
+        if (awaiting_) {
+            return 0;
         }
+        return options_.timeouts().getImplicitWaitTimeout().toMillis();
+    }
 
-        final long end = System.currentTimeMillis() + implicitWait;
-        Exception lastException = null;
+    /**
+     * The implicit wait of all the lookups: tries the given condition till it is done,
+     * waiting for changes of the page in between, with a single deadline.
+     *
+     * @param scope the element the condition is evaluated for; checked for staleness
+     *        before every try, a stale element fails right away; may be null
+     * @param condition the condition
+     * @param done whether the result of the condition is final
+     * @return the result of the last try
+     * @throws WebDriverException the exception of the last try, if any; an
+     *         {@link InvalidSelectorException} is thrown right away
+     */
+    private <X> X implicitlyWaitFor(final HtmlUnitWebElement scope, final Callable<X> condition,
+            final Predicate<? super X> done) {
+        final long end = System.currentTimeMillis() + getImplicitWaitMillis();
+        while (true) {
+            if (scope != null) {
+                scope.assertElementNotStale();
+            }
 
-        do {
-            X toReturn = null;
+            final long changes = observeChanges();
+            X result = null;
+            Exception exception = null;
             try {
-                toReturn = condition.call();
-            }
-            catch (final Exception e) {
-                lastException = e;
+                // lookups don't wait for a pending eager page load
+                result = commandQueue_.read(condition);
+                if (done.test(result)) {
+                    return result;
+                }
             }
-
-            if (toReturn instanceof Boolean && !(Boolean) toReturn) {
-                continue;
+            catch (final InvalidSelectorException e) {
+                // a broken locator doesn't get better by waiting
+                throw e;
             }
-
-            if (toReturn != null) {
-                return toReturn;
+            catch (final Exception e) {
+                exception = e;
             }
 
-            sleepQuietly(sleepTime);
-        }
-        while (System.currentTimeMillis() < end);
-
-        if (lastException != null) {
-            if (lastException instanceof RuntimeException) {
-                throw (RuntimeException) lastException;
+            if (System.currentTimeMillis() >= end || !waitForChange(changes, end)) {
+                if (exception instanceof RuntimeException) {
+                    throw (RuntimeException) exception;
+                }
+                if (exception != null) {
+                    throw new WebDriverException(exception);
+                }
+                return result;
             }
-            throw new WebDriverException(lastException);
         }
-
-        return null;
     }
 
     public WebClient getWebClient() {
@@ -1093,6 +1532,8 @@ public WebClient getWebClient() {
     }
 
     public HtmlUnitWindow getCurrentWindow() {
+        // the dom of an eagerly loaded page is still built by the loading command
+        commandQueue_.awaitPageLoad();
         if (webClient_ == null || currentWindow_ == null) {
             throw new NoSuchSessionException("Session is closed");
         }
@@ -1161,11 +1602,128 @@ public Options manage() {
         return options_;
     }
 
-    private static void sleepQuietly(final long ms) {
-        try {
-            Thread.sleep(ms);
+    /**
+     * Blocks till the DOM of the current page changed, a window got new content or a
+     * JavaScript job of the current window completed since the given number of changes
+     * was read, or the deadline is reached. Used by the implicit waits instead of polling.
+     *
+     * @param changes the number of changes read before the last try
+     * @param end the deadline in milliseconds
+     * @return whether to try again; {@code false} if the deadline was reached without any change
+     *         or the wait was ended early because nothing can change any longer, see
+     *         {@link #setFailFastImplicitWait(boolean)}
+     */
+    private boolean waitForChange(final long changes, final long end) {
+        return waitForChange(changeSignal_, changes, end);
+    }
+
+    /**
+     * Like {@link #waitForChange(long, long)}, but waits for the given signal instead of the
+     * changes of the current page; the signal has to observe everything that can fulfill the wait.
+     *
+     * @param signal the signal
+     * @param changes the number of changes of the signal read before the last try
+     * @param end the deadline in milliseconds
+     * @return whether to try again
+     */
+    boolean waitForChange(final PageChangeSignal signal, final long changes, final long end) {
+        if (failFastImplicitWait_ && isQuiescent() && signal.getChanges() == changes) {
+            failFastCount_.incrementAndGet();
+            savedWaitMillis_.addAndGet(Math.max(0, end - System.currentTimeMillis()));
+            return false;
+        }
+
+        return awaitChange(signal, changes, end);
+    }
+
+    /**
+     * Blocks till something changed since the given number of changes was read or the
+     * deadline is reached, see {@link #waitForChange(long, long)}.
+     *
+     * @param changes the number of changes read before the last try
+     * @param end the deadline in milliseconds
+     * @return whether to try again; {@code false} if the deadline was reached without any change
+     */
+    private boolean awaitChange(final long changes, final long end) {
+        return awaitChange(changeSignal_, changes, end);
+    }
+
+    /**
+     * Observes the current page and returns the number of changes so far; observing first
+     * ensures that every change after reading the number wakes up a later wait.
+     *
+     * @return the number of changes of the current page or window
+     */
+    private long observeChanges() {
+        final HtmlUnitWindow window = currentWindow_;
+        if (window != null) {
+            changeSignal_.observeJobs(window.getWebWindow());
+            if (window.getWebWindow().getEnclosedPage() instanceof SgmlPage) {
+                changeSignal_.observe((SgmlPage) window.getWebWindow().getEnclosedPage());
+            }
+        }
+        return changeSignal_.getChanges();
+    }
+
+    private boolean awaitChange(final PageChangeSignal signal, final long changes, final long end) {
+        signal.await(changes, end);
+        return signal.getChanges() != changes || System.currentTimeMillis() < end;
+    }
+
+    /**
+     * @return whether all pages are completely loaded and no JavaScript job is pending
+     *         or running in any window; asynchronous requests are jobs as well
+     */
+    private boolean isQuiescent() {
+        if (alert_.isLocked()) {
+            return false;
+        }
+        for (final WebWindow window : new ArrayList<>(getWebClient().getWebWindows())) {
+            final JavaScriptJobManager jobManager = window.getJobManager();
+            if (jobManager != null && jobManager.getJobCount() > 0) {
+                return false;
+            }
+            final Page page = window.getEnclosedPage();
+            if (page instanceof HtmlPage
+                    && !DomNode.READY_STATE_COMPLETE.equals(((HtmlPage) page).getReadyState())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Immutable snapshot of the implicit waits ended early.
+     *
+     * @see HtmlUnitDriver#setFailFastImplicitWait(boolean)
+     */
+    public static final class ImplicitWaitStatistics {
+        private final long failFastCount_;
+        private final long savedMillis_;
+
+        ImplicitWaitStatistics(final long failFastCount, final long savedMillis) {
+            failFastCount_ = failFastCount;
+            savedMillis_ = savedMillis;
+        }
+
+        /**
+         * @return the number of implicit waits ended early so far
+         */
+        public long getFailFastCount() {
+            return failFastCount_;
+        }
+
+        /**
+         * @return the wait time saved so far, the sum of the remaining timeouts
+         *         of the waits ended early
+         */
+        public Duration getSavedTime() {
+            return Duration.ofMillis(savedMillis_);
         }
-        catch (final InterruptedException ignored) {
+
+        @Override
+        public String toString() {
+            return "ImplicitWaitStatistics[failFast=" + failFastCount_ + ", saved=" + getSavedTime() + "]";
         }
     }
 
@@ -1198,6 +1756,10 @@ public HtmlUnitWebElement addIfAbsent(final HtmlUnitDriver driver, final DomElem
         public void remove(final Page page) {
             elementsMapByPage_.remove(page);
         }
+
+        public void clear() {
+            elementsMapByPage_.clear();
+        }
     }
 
     @Override
@@ -1236,6 +1798,286 @@ protected void switchToDefaultContentOfWindow(final WebWindow window) {
         }
     }
 
+    /**
+     * Resets this driver to the state of a freshly constructed one while keeping
+     * the underlying {@link WebClient}. All cookies, web storage and cached
+     * responses are removed, all windows are replaced by a single blank one and
+     * the keyboard, mouse and timeout settings are restored.
+     */
+    void reset() {
+        final WebClient client = getWebClient();
+        alert_.close();
+        alert_.clearQueuedAnswers();
+        asyncScriptExecutor_ = null;
+
+        // open the new window first; closing the last window ends the session
+        final List<TopLevelWindow> oldWindows = new ArrayList<>(client.getTopLevelWindows());
+        openNewWindow();
+        client.setCurrentWindow(currentWindow_.getWebWindow());
+        for (final TopLevelWindow window : oldWindows) {
+            client.getStorageHolder().getSessionStorage(window).clear();
+            window.close(true);
+        }
+
+        client.getCookieManager().clearCookies();
+        client.getCache().clear();
+        final StorageHolder storageHolder = client.getStorageHolder();
+        for (final URL origin : storageOrigins_.values()) {
+            storageHolder.getLocalStorage(origin).clear();
+        }
+        storageOrigins_.clear();
+
+        elementsMap_.clear();
+        options_.timeouts().reset();
+        resetKeyboardAndMouseState();
+        resetInputState();
+        alert_.setAutoAccept(false);
+    }
+
+    private void rememberStorageOrigin(final URL url) {
+        if (url != null && url.getHost() != null && !url.getHost().isEmpty()) {
+            storageOrigins_.putIfAbsent(url.getProtocol() + "://" + url.getHost(), url);
+        }
+    }
+
+    /**
+     * Creates new drivers continuing the session of this one, e.g. to explore several
+     * branches of a site after logging in only once. Every fork gets its own
+     * {@link WebClient} and a copy of the cookies, the local storage, the session storage
+     * and the current page of the current window, as well as the settings of this driver
+     * (timeouts, page load strategy, alert behaviour, executor...). The proxy configuration
+     * and a custom {@link org.htmlunit.WebConnection} are shared with the forks.
+     * <p>
+     * The current page is not requested again but rebuilt from the response already
+     * received; please note that this runs its scripts again, so changes done to the DOM
+     * after the page was loaded are not part of the copy. The other entries of the history
+     * are not copied, the history of a fork starts with the current page. Forking should
+     * be done while this driver is idle.
+     *
+     * @param n the number of drivers to create
+     * @return the new drivers
+     */
+    public List<HtmlUnitDriver> fork(final int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n has to be positive");
+        }
+
+        final List<HtmlUnitDriver> forks = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                final HtmlUnitDriver fork = newFork();
+                forks.add(fork);
+                copySessionTo(fork);
+            }
+        }
+        catch (final RuntimeException e) {
+            for (final HtmlUnitDriver fork : forks) {
+                fork.quit();
+            }
+            throw e;
+        }
+        return forks;
+    }
+
+    /**
+     * Creates a new, blank driver used by {@link #fork(int)}; override this if your
+     * driver needs a special setup.
+     *
+     * @return the new driver
+     */
+    protected HtmlUnitDriver newFork() {
+        return new HtmlUnitDriver(getBrowserVersion(), isJavascriptEnabled());
+    }
+
+    private void copySessionTo(final HtmlUnitDriver fork) {
+        final WebClient source = getWebClient();
+        final WebClient target = fork.getWebClient();
+
+        fork.setInlineExecution(inlineExecution_);
+        fork.setJavaScriptQuiescenceTimeout(javaScriptQuiescenceTimeout_);
+        fork.elementIndex_.setEnabled(elementIndex_.isEnabled());
+        fork.parallelFind_ = parallelFind_;
+        fork.failFastImplicitWait_ = failFastImplicitWait_;
+        elementFinder_.copyLocatorsTo(fork.elementFinder_);
+        fork.pageLoadStrategy_ = pageLoadStrategy_;
+        fork.alert_.setUnexpectedAlertBehaviour(alert_.getUnexpectedAlertBehaviour());
+        fork.setAcceptInsecureCerts(isAcceptInsecureCerts());
+        fork.setDownloadImages(isDownloadImages());
+        target.getOptions().setProxyConfig(source.getOptions().getProxyConfig());
+        WebConnection connection = source.getWebConnection();
+        if (connection instanceof EagerWebConnection) {
+            // bound to the command queue of this driver
+            connection = ((EagerWebConnection) connection).getWrappedWebConnection();
+        }
+        // the default connection is bound to the web client of this driver
+        if (!(connection instanceof HttpWebConnection)) {
+            target.setWebConnection(connection);
+        }
+        if (source.getClipboardHandler() instanceof InMemoryClipboardHandler) {
+            target.setClipboardHandler(new InMemoryClipboardHandler());
+        }
+        else {
+            target.setClipboardHandler(source.getClipboardHandler());
+        }
+        final Executor executor;
+        synchronized (this) {
+            // the default executor is owned by this driver, the fork creates its own
+            executor = executor_ == defaultExecutor_ ? null : executor_;
+        }
+        synchronized (fork) {
+            fork.virtualThreads_ = virtualThreads_;
+            if (executor != null) {
+                fork.executor_ = executor;
+            }
+        }
+        final HtmlUnitTimeouts timeouts = options_.timeouts();
+        fork.options_.timeouts()
+            .implicitlyWait(timeouts.getImplicitWaitTimeout())
+            .scriptTimeout(timeouts.getScriptTimeout())
+            .pageLoadTimeout(timeouts.getPageLoadTimeout());
+
+        for (final org.htmlunit.util.Cookie cookie : source.getCookieManager().getCookies()) {
+            target.getCookieManager().addCookie(cookie);
+        }
+
+        for (final Entry<String, URL> origin : storageOrigins_.entrySet()) {
+            target.getStorageHolder().getLocalStorage(origin.getValue())
+                .putAll(source.getStorageHolder().getLocalStorage(origin.getValue()));
+            fork.storageOrigins_.putIfAbsent(origin.getKey(), origin.getValue());
+        }
+
+        final WebWindow sourceWindow = getCurrentWindow().getWebWindow().getTopWindow();
+        final WebWindow targetWindow = fork.getCurrentWindow().getWebWindow();
+        target.getStorageHolder().getSessionStorage(targetWindow)
+            .putAll(source.getStorageHolder().getSessionStorage(sourceWindow));
+
+        // alerts raised while rebuilding the page are dismissed
+        fork.alert_.setAutoAccept(true);
+        try {
+            final Page page = sourceWindow.getEnclosedPage();
+            if (page != null && !UrlUtils.URL_ABOUT_BLANK.toExternalForm().equals(page.getUrl().toExternalForm())) {
+                target.loadWebResponseInto(page.getWebResponse(), targetWindow);
+            }
+        }
+        catch (final IOException e) {
+            throw new WebDriverException(e);
+        }
+        finally {
+            fork.alert_.setAutoAccept(false);
+        }
+    }
+
+    /**
+     * Writes the session of this driver to the given file and releases the pages
+     * afterwards, so an idle session keeps next to no memory. The session is
+     * continued later by {@link #resume(Path)}, done by this or by another driver.
+     * <p>
+     * Saved are the cookies, the local storage, the timeouts and for every top level
+     * window its name, its session storage and the request of its current page. The
+     * pages are not saved; resuming loads them again. The rest of the window history
+     * is not saved. Hibernating should be done while this driver is idle, afterwards
+     * the driver is left blank like a new one.
+     *
+     * @param file the file to write the session to
+     */
+    public void hibernate(final Path file) {
+        final WebClient client = getWebClient();
+        final HibernatedSession session = new HibernatedSession();
+
+        session.setCookies(client.getCookieManager().getCookies());
+        for (final Entry<String, URL> origin : storageOrigins_.entrySet()) {
+            session.putLocalStorage(origin.getKey(),
+                    client.getStorageHolder().getLocalStorage(origin.getValue()));
+        }
+
+        session.setTimeouts(options_.timeouts());
+
+        final WebWindow currentTopWindow = getCurrentWindow().getWebWindow().getTopWindow();
+        for (final TopLevelWindow window : client.getTopLevelWindows()) {
+            if (window == currentTopWindow) {
+                session.setCurrentWindow(session.getWindows().size());
+            }
+
+            final HibernatedSession.WindowState state = new HibernatedSession.WindowState(window.getName(),
+                    client.getStorageHolder().getSessionStorage(window));
+            final Page page = window.getEnclosedPage();
+            if (page != null && !UrlUtils.URL_ABOUT_BLANK.toExternalForm().equals(page.getUrl().toExternalForm())) {
+                state.setRequest(page.getWebResponse().getWebRequest());
+            }
+            session.getWindows().add(state);
+        }
+
+        try {
+            session.write(file);
+        }
+        catch (final IOException e) {
+            throw new WebDriverException(e);
+        }
+        reset();
+    }
+
+    /**
+     * Continues a session written by {@link #hibernate(Path)}, replacing the session
+     * of this driver. The windows are opened again and their current pages are
+     * reloaded from the server, sending the same method and body as before; each
+     * window history starts with that page. The window handles are not the same as before.
+     *
+     * @param file the file written by {@link #hibernate(Path)}
+     */
+    public void resume(final Path file) {
+        final HibernatedSession session;
+        try {
+            session = HibernatedSession.read(file);
+        }
+        catch (final IOException e) {
+            throw new WebDriverException(e);
+        }
+        reset();
+
+        final WebClient client = getWebClient();
+        for (final org.htmlunit.util.Cookie cookie : session.getCookies()) {
+            client.getCookieManager().addCookie(cookie);
+        }
+        session.applyTimeouts(options_.timeouts());
+
+        // alerts raised while reloading the pages are dismissed
+        alert_.setAutoAccept(true);
+        try {
+            for (final Entry<String, ? extends Map<String, String>> entry : session.getLocalStorage().entrySet()) {
+                final URL origin = UrlUtils.toUrlUnsafe(entry.getKey());
+                client.getStorageHolder().getLocalStorage(origin).putAll(entry.getValue());
+                rememberStorageOrigin(origin);
+            }
+
+            WebWindow current = currentWindow_.getWebWindow();
+            for (int i = 0; i < session.getWindows().size(); i++) {
+                final HibernatedSession.WindowState state = session.getWindows().get(i);
+                final WebWindow window = i == 0
+                        ? currentWindow_.getWebWindow()
+                        : client.openWindow(UrlUtils.URL_ABOUT_BLANK, state.getName());
+                window.setName(state.getName());
+                client.getStorageHolder().getSessionStorage(window).putAll(state.getSessionStorage());
+
+                final WebRequest request = state.getRequest();
+                if (request != null) {
+                    client.getPage(window, request);
+                }
+
+                if (i == session.getCurrentWindow()) {
+                    current = window;
+                }
+            }
+            client.setCurrentWindow(current);
+            setCurrentWindow(current);
+        }
+        catch (final IOException e) {
+            throw new WebDriverException(e);
+        }
+        finally {
+            alert_.setAutoAccept(false);
+        }
+    }
+
     public void openNewWindow() {
         final WebWindow newWindow = webClient_.openWindow(UrlUtils.URL_ABOUT_BLANK, "");
         currentWindow_ = new HtmlUnitWindow(newWindow);
@@ -0,0 +1,370 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * A pool of pre-warmed {@link HtmlUnitDriver} instances.
+ * <p>
+ * Drivers are handed out by {@link #lease()} and handed back by
+ * {@link #release(HtmlUnitDriver)}. Releasing a driver resets it in place
+ * (cookies, storage, windows, known elements, input state and timeouts) instead of
+ * quitting it, so the expensive setup of the underlying {@code WebClient} is done
+ * only once per pooled instance.
+ *
+ * @author Ronald Brill
+ */
+public class HtmlUnitDriverPool implements AutoCloseable {
+
+    private final Supplier<? extends HtmlUnitDriver> factory_;
+    private final int maxSize_;
+    private final Semaphore permits_;
+    private final BlockingDeque<HtmlUnitDriver> idle_ = new LinkedBlockingDeque<>();
+    private final Set<HtmlUnitDriver> leased_ = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed_;
+    // the drivers managed (idle, leased or being created); guarded by this
+    private int size_;
+
+    private final AtomicLong created_ = new AtomicLong();
+    private final AtomicLong discarded_ = new AtomicLong();
+    private final AtomicLong leaseCount_ = new AtomicLong();
+    private final AtomicLong leaseNanos_ = new AtomicLong();
+    private final AtomicLong resetCount_ = new AtomicLong();
+    private final AtomicLong resetNanos_ = new AtomicLong();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param factory creates new drivers whenever the pool has to grow
+     * @param maxSize the maximum number of drivers managed by this pool
+     */
+    public HtmlUnitDriverPool(final Supplier<? extends HtmlUnitDriver> factory, final int maxSize) {
+        if (factory == null) {
+            throw new IllegalArgumentException("factory cannot be null");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize has to be positive");
+        }
+        factory_ = factory;
+        maxSize_ = maxSize;
+        permits_ = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Creates idle drivers until the pool holds at least the given number of
+     * instances (but never more than the maximum size).
+     *
+     * @param count the number of drivers to have available
+     */
+    public void prewarm(final int count) {
+        ensureOpen();
+        final int target = Math.min(count, maxSize_);
+        // holding a permit while creating keeps lease() from growing the pool at the same time
+        while (permits_.tryAcquire()) {
+            try {
+                synchronized (this) {
+                    if (size_ >= target) {
+                        return;
+                    }
+                    size_++;
+                }
+                idle_.offerLast(create());
+            }
+            finally {
+                permits_.release();
+            }
+        }
+    }
+
+    /**
+     * Leases a driver, waiting as long as necessary for one to become available.
+     *
+     * @return the driver
+     */
+    public HtmlUnitDriver lease() {
+        final long start = System.nanoTime();
+        try {
+            permits_.acquire();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException(e);
+        }
+        return leaseAcquired(start);
+    }
+
+    /**
+     * Leases a driver, waiting at most the given time for one to become available.
+     *
+     * @param timeout the maximum time to wait
+     * @return the driver
+     * @throws TimeoutException if no driver became available in time
+     */
+    public HtmlUnitDriver lease(final Duration timeout) {
+        final long start = System.nanoTime();
+        try {
+            if (!permits_.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("No driver available after " + timeout.toMillis() + "ms");
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException(e);
+        }
+        return leaseAcquired(start);
+    }
+
+    private HtmlUnitDriver leaseAcquired(final long start) {
+        final HtmlUnitDriver driver;
+        try {
+            ensureOpen();
+            final HtmlUnitDriver idle;
+            synchronized (this) {
+                idle = idle_.pollFirst();
+                if (idle == null) {
+                    size_++;
+                }
+            }
+            driver = idle == null ? create() : idle;
+        }
+        catch (final RuntimeException e) {
+            permits_.release();
+            throw e;
+        }
+
+        leased_.add(driver);
+        leaseCount_.incrementAndGet();
+        leaseNanos_.addAndGet(System.nanoTime() - start);
+        return driver;
+    }
+
+    /**
+     * Hands a leased driver back to the pool. The driver is reset and becomes
+     * available for the next lease; if the reset fails or the driver was already
+     * quit, it is discarded instead.
+     *
+     * @param driver the driver to return
+     */
+    public void release(final HtmlUnitDriver driver) {
+        if (!leased_.remove(driver)) {
+            throw new IllegalArgumentException("The driver was not leased from this pool");
+        }
+
+        try {
+            if (!closed_ && reset(driver)) {
+                // LIFO - the most recently used driver is the warmest one
+                idle_.offerFirst(driver);
+            }
+            else {
+                discard(driver);
+            }
+        }
+        finally {
+            permits_.release();
+        }
+    }
+
+    private boolean reset(final HtmlUnitDriver driver) {
+        final long start = System.nanoTime();
+        try {
+            driver.reset();
+            return true;
+        }
+        catch (final RuntimeException e) {
+            return false;
+        }
+        finally {
+            resetCount_.incrementAndGet();
+            resetNanos_.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Creates a new driver; the caller has already counted it in {@link #size_}.
+     */
+    private HtmlUnitDriver create() {
+        final HtmlUnitDriver driver;
+        try {
+            driver = factory_.get();
+        }
+        catch (final RuntimeException e) {
+            synchronized (this) {
+                size_--;
+            }
+            throw e;
+        }
+        created_.incrementAndGet();
+        return driver;
+    }
+
+    private void discard(final HtmlUnitDriver driver) {
+        synchronized (this) {
+            size_--;
+        }
+        discarded_.incrementAndGet();
+        try {
+            driver.quit();
+        }
+        catch (final RuntimeException ignored) {
+            // already gone
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed_) {
+            throw new IllegalStateException("The pool is closed");
+        }
+    }
+
+    /**
+     * Quits all idle drivers; drivers still leased are quit when released.
+     */
+    @Override
+    public void close() {
+        closed_ = true;
+        HtmlUnitDriver driver = idle_.pollFirst();
+        while (driver != null) {
+            discard(driver);
+            driver = idle_.pollFirst();
+        }
+    }
+
+    /**
+     * @return a snapshot of the current pool statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(idle_.size(), leased_.size(), created_.get(), discarded_.get(),
+                leaseCount_.get(), leaseNanos_.get(), resetCount_.get(), resetNanos_.get());
+    }
+
+    /**
+     * Immutable snapshot of the pool usage.
+     */
+    public static final class Statistics {
+        private final int idle_;
+        private final int leased_;
+        private final long created_;
+        private final long discarded_;
+        private final long leaseCount_;
+        private final long leaseNanos_;
+        private final long resetCount_;
+        private final long resetNanos_;
+
+        Statistics(final int idle, final int leased, final long created, final long discarded,
+                final long leaseCount, final long leaseNanos, final long resetCount, final long resetNanos) {
+            idle_ = idle;
+            leased_ = leased;
+            created_ = created;
+            discarded_ = discarded;
+            leaseCount_ = leaseCount;
+            leaseNanos_ = leaseNanos;
+            resetCount_ = resetCount;
+            resetNanos_ = resetNanos;
+        }
+
+        /**
+         * @return the number of drivers waiting to be leased
+         */
+        public int getIdle() {
+            return idle_;
+        }
+
+        /**
+         * @return the number of drivers currently leased
+         */
+        public int getLeased() {
+            return leased_;
+        }
+
+        /**
+         * @return the number of drivers managed by the pool
+         */
+        public int getSize() {
+            return idle_ + leased_;
+        }
+
+        /**
+         * @return the number of drivers created so far
+         */
+        public long getCreated() {
+            return created_;
+        }
+
+        /**
+         * @return the number of drivers quit by the pool so far
+         */
+        public long getDiscarded() {
+            return discarded_;
+        }
+
+        /**
+         * @return the number of leases so far
+         */
+        public long getLeaseCount() {
+            return leaseCount_;
+        }
+
+        /**
+         * @return the average time a lease had to wait, including driver creation
+         */
+        public Duration getAverageLeaseLatency() {
+            return average(leaseNanos_, leaseCount_);
+        }
+
+        /**
+         * @return the number of resets done so far
+         */
+        public long getResetCount() {
+            return resetCount_;
+        }
+
+        /**
+         * @return the average time spent resetting a released driver
+         */
+        public Duration getAverageResetTime() {
+            return average(resetNanos_, resetCount_);
+        }
+
+        private static Duration average(final long nanos, final long count) {
+            if (count == 0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(nanos / count);
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics[idle=" + idle_ + ", leased=" + leased_ + ", created=" + created_
+                    + ", discarded=" + discarded_ + ", leases=" + leaseCount_
+                    + ", avgLeaseLatency=" + getAverageLeaseLatency()
+                    + ", resets=" + resetCount_ + ", avgResetTime=" + getAverageResetTime() + "]";
+        }
+    }
+}
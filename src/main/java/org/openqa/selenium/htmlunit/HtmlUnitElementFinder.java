@@ -19,17 +19,17 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import org.htmlunit.Page;
 import org.htmlunit.SgmlPage;
 import org.htmlunit.cssparser.parser.CSSException;
 import org.htmlunit.html.DomElement;
 import org.htmlunit.html.DomNode;
-import org.htmlunit.html.DomNodeList;
-import org.htmlunit.html.HtmlAnchor;
 import org.htmlunit.html.HtmlElement;
 import org.htmlunit.html.HtmlPage;
 import org.openqa.selenium.By;
@@ -49,7 +49,7 @@ public class HtmlUnitElementFinder {
     private static final String INVALIDSELECTIONERROR =
             "The xpath expression '%s' selected an object of type '%s' instead of a WebElement";
 
-    private final Map<Class<? extends By>, HtmlUnitElementLocator> finders_ = new HashMap<>();
+    private final Map<Class<? extends By>, HtmlUnitElementLocator> finders_ = new ConcurrentHashMap<>();
 
     HtmlUnitElementFinder() {
         finders_.put(By.id("a").getClass(), new FindByID());
@@ -60,6 +60,39 @@ public class HtmlUnitElementFinder {
         finders_.put(By.cssSelector("a").getClass(), new FindByCssSelector());
         finders_.put(By.tagName("a").getClass(), new FindByTagName());
         finders_.put(By.xpath("//a").getClass(), new FindByXPath());
+        finders_.put(ByTestId.class, new FindByTestId());
+    }
+
+    /**
+     * Registers the locator implementation used for the given class of {@link By}, replacing
+     * the one registered before (built-in ones included). Locators without a registered
+     * implementation are evaluated by {@link By#findElements(org.openqa.selenium.SearchContext)},
+     * usually mapping them to other locators or to JavaScript.
+     *
+     * @param byClass the class of the locators, subclasses are not included
+     * @param locator the implementation
+     */
+    public void register(final Class<? extends By> byClass, final HtmlUnitElementLocator locator) {
+        finders_.put(byClass, locator);
+    }
+
+    /**
+     * Removes the locator implementation registered for the given class of {@link By}.
+     *
+     * @param byClass the class of the locators
+     * @return the implementation removed or {@code null} if there was none
+     */
+    public HtmlUnitElementLocator unregister(final Class<? extends By> byClass) {
+        return finders_.remove(byClass);
+    }
+
+    /**
+     * Copies the registered locator implementations to the given finder.
+     *
+     * @param finder the finder of another driver
+     */
+    void copyLocatorsTo(final HtmlUnitElementFinder finder) {
+        finder.finders_.putAll(finders_);
     }
 
     public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
@@ -77,6 +110,12 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
             return locator.findElements(driver);
         }
 
+        if (driver.isParallelFind()) {
+            final List<DomElement> found = findInParallel(driver, locator);
+            if (found != null) {
+                return convertRawDomElementsToWebElements(driver, found);
+            }
+        }
         return elementLocator.findElements(driver, locator);
     }
 
@@ -98,6 +137,184 @@ public List<WebElement> findElements(final HtmlUnitWebElement element, final By
         return elementLocator.findElements(element, locator);
     }
 
+    /**
+     * Counts the elements found by the given locator without wrapping them into {@link WebElement}s.
+     *
+     * @param driver the driver
+     * @param locator the locator
+     * @return the number of elements found
+     */
+    public int count(final HtmlUnitDriver driver, final By locator) {
+        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+        if (elementLocator == null) {
+            return locator.findElements(driver).size();
+        }
+
+        return elementLocator.count(driver, locator);
+    }
+
+    /**
+     * Checks if the given locator finds at least one element, stopping at the first match if possible.
+     *
+     * @param driver the driver
+     * @param locator the locator
+     * @return whether an element was found
+     */
+    public boolean exists(final HtmlUnitDriver driver, final By locator) {
+        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+        if (elementLocator == null) {
+            return !locator.findElements(driver).isEmpty();
+        }
+
+        return elementLocator.exists(driver, locator);
+    }
+
+    /**
+     * Counts the descendants of the given element found by the given locator without
+     * wrapping them into {@link WebElement}s.
+     *
+     * @param element the element to search below
+     * @param locator the locator
+     * @return the number of elements found
+     */
+    public int count(final HtmlUnitWebElement element, final By locator) {
+        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+        if (elementLocator == null) {
+            return locator.findElements(element).size();
+        }
+
+        return elementLocator.count(element, locator);
+    }
+
+    /**
+     * Checks if the given locator finds at least one descendant of the given element,
+     * stopping at the first match if possible.
+     *
+     * @param element the element to search below
+     * @param locator the locator
+     * @return whether an element was found
+     */
+    public boolean exists(final HtmlUnitWebElement element, final By locator) {
+        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+        if (elementLocator == null) {
+            return !locator.findElements(element).isEmpty();
+        }
+
+        return elementLocator.exists(element, locator);
+    }
+
+    /**
+     * Finds the elements of several locators at once. Locators by tag name, class name,
+     * CSS selector and simple XPath expressions like {@code //input[@type='text']} are
+     * evaluated during a single traversal of the page. All other locators are evaluated one
+     * by one with {@link #findElements(HtmlUnitDriver, By)}; for locators by id and name this
+     * looks up the id and name maps of the page, without any traversal.
+     *
+     * @param driver the driver
+     * @param locators the locators by key
+     * @return the elements found by key, in the order of the given map
+     */
+    public Map<String, List<WebElement>> findAll(final HtmlUnitDriver driver, final Map<String, By> locators) {
+        final Page lastPage = driver.getCurrentWindow().lastPage();
+        final Map<String, List<WebElement>> found = new LinkedHashMap<>();
+        final List<String> keys = new ArrayList<>();
+        final List<Predicate<DomElement>> matchers = new ArrayList<>();
+        for (final Map.Entry<String, By> entry : locators.entrySet()) {
+            final By locator = entry.getValue();
+            final Predicate<DomElement> matcher = lastPage instanceof SgmlPage
+                    ? toMatcher(driver, (SgmlPage) lastPage, locator) : null;
+            if (matcher == null) {
+                found.put(entry.getKey(), findElements(driver, locator));
+            }
+            else {
+                // placeholder, keeps the order of the keys
+                found.put(entry.getKey(), null);
+                keys.add(entry.getKey());
+                matchers.add(matcher);
+            }
+        }
+
+        if (!matchers.isEmpty()) {
+            final int size = matchers.size();
+            final List<List<DomElement>> matched = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                matched.add(new ArrayList<>());
+            }
+            for (final DomElement element : ((SgmlPage) lastPage).getDomElementDescendants()) {
+                for (int i = 0; i < size; i++) {
+                    if (matchers.get(i).test(element)) {
+                        matched.get(i).add(element);
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                found.put(keys.get(i), convertRawDomElementsToWebElements(driver, matched.get(i)));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Searches the page in parallel if it is large and static, see {@link ParallelDomSearch}.
+     *
+     * @return the elements found or {@code null} if the locator has to be evaluated sequentially
+     */
+    private List<DomElement> findInParallel(final HtmlUnitDriver driver, final By locator) {
+        final Page lastPage = driver.getCurrentWindow().lastPage();
+        if (!(lastPage instanceof SgmlPage) || !ParallelDomSearch.isApplicable(driver, (SgmlPage) lastPage)) {
+            return null;
+        }
+
+        final Predicate<DomElement> matcher = toMatcher(driver, (SgmlPage) lastPage, locator);
+        if (matcher == null) {
+            return null;
+        }
+        return ParallelDomSearch.findAll((SgmlPage) lastPage, matcher);
+    }
+
+    /**
+     * Creates a matcher for the elements of the given page found by the given locator.
+     *
+     * @return the matcher or {@code null} if the locator has to be evaluated on its own
+     */
+    private Predicate<DomElement> toMatcher(final HtmlUnitDriver driver, final SgmlPage page, final By locator) {
+        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+        final boolean indexed = driver.getElementIndex().isEnabled();
+
+        if (elementLocator instanceof FindByTagName && !indexed) {
+            final String name = HtmlUnitElementLocator.getValue(locator);
+            if ("".equals(name)) {
+                return null;
+            }
+            return tagNameMatcher(page, name);
+        }
+
+        if (elementLocator instanceof FindByClassName && !indexed) {
+            final String className = HtmlUnitElementLocator.getValue(locator);
+            if (!HtmlUnitElementIndex.isSimpleClassName(className)) {
+                return null;
+            }
+            return element -> HtmlUnitElementIndex.hasClassName(element.getAttributeDirect("class"), className);
+        }
+
+        if (elementLocator instanceof FindByCssSelector) {
+            try {
+                return HtmlUnitLocatorCache.getInstance().compileSelectors(page,
+                        HtmlUnitElementLocator.getValue(locator));
+            }
+            catch (final CSSException ex) {
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
+            }
+        }
+
+        if (elementLocator instanceof FindByXPath && !indexed && SimpleXPath.isApplicable(page)) {
+            final SimpleXPath xpath = SimpleXPath.compile(HtmlUnitElementLocator.getValue(locator));
+            return xpath == null ? null : xpath.toMatcher();
+        }
+
+        return null;
+    }
+
     public static class FindByID extends HtmlUnitElementLocator {
 
         @Override
@@ -130,13 +347,32 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
         @Override
         public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
             final String id = getValue(locator);
-            return new FindByXPath().findElement(element, By.xpath(".//*[@id = '" + id + "']"));
+            final List<DomElement> found = findDescendantsByAttribute(element.getElement(), "id", id, true);
+            if (found.isEmpty()) {
+                throw new NoSuchElementException("Unable to locate element with ID: '" + id + "'");
+            }
+            return element.getDriver().toWebElement(found.get(0));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String id = getValue(locator);
-            return new FindByXPath().findElements(element, By.xpath(".//*[@id = '" + id + "']"));
+            final List<DomElement> found =
+                    findDescendantsByAttribute(element.getElement(), "id", getValue(locator), false);
+            return convertRawDomElementsToWebElements(element.getDriver(), found);
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final SgmlPage lastPage = getLastPage(driver);
+            if (!(lastPage instanceof HtmlPage)) {
+                throw new IllegalStateException("Cannot find elements by id for " + lastPage);
+            }
+            return ((HtmlPage) lastPage).getElementById(getValue(locator)) != null;
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            return !findDescendantsByAttribute(element.getElement(), "id", getValue(locator), true).isEmpty();
         }
     }
 
@@ -155,80 +391,155 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String name = getValue(locator);
-            return new FindByXPath().findElements(element, By.xpath(".//*[@name = '" + name + "']"));
+            final List<DomElement> found =
+                    findDescendantsByAttribute(element.getElement(), "name", getValue(locator), false);
+            return convertRawDomElementsToWebElements(element.getDriver(), found);
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            return !findDescendantsByAttribute(element.getElement(), "name", getValue(locator), true).isEmpty();
         }
     }
 
     public static class FindByLinkText extends HtmlUnitElementLocator {
 
         @Override
-        public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            final SgmlPage lastPage = getLastPage(driver);
-            if (!(lastPage instanceof HtmlPage)) {
-                throw new IllegalStateException("Cannot find links for " + lastPage);
-            }
+        public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
+            final String expectedText = getValue(locator);
+            return firstLink(driver, findLinks(getLastPage(driver), null, expectedText::equals, true));
+        }
 
+        @Override
+        public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
             final String expectedText = getValue(locator);
-            final List<HtmlAnchor> anchors = ((HtmlPage) lastPage).getAnchors();
+            return convertRawDomElementsToWebElements(driver,
+                    findLinks(getLastPage(driver), null, expectedText::equals, false));
+        }
 
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlAnchor anchor : anchors) {
-                if (expectedText.equals(anchor.asNormalizedText())) {
-                    toReturn.add(driver.toWebElement(anchor));
-                }
-            }
-            return toReturn;
+        @Override
+        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
+            final String expectedText = getValue(locator);
+            return firstLink(element.getDriver(),
+                    findLinks(element.getElement().getPage(), element.getElement(), expectedText::equals, true));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
             final String expectedText = getValue(locator);
-            final List<? extends HtmlElement> htmlElements = element.getElement().getElementsByTagName("a");
+            return convertRawDomElementsToWebElements(element.getDriver(),
+                    findLinks(element.getElement().getPage(), element.getElement(), expectedText::equals, false));
+        }
 
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final DomElement e : htmlElements) {
-                if (expectedText.equals(e.asNormalizedText())) {
-                    toReturn.add(element.getDriver().toWebElement(e));
-                }
-            }
-            return toReturn;
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final String expectedText = getValue(locator);
+            return !findLinks(getLastPage(driver), null, expectedText::equals, true).isEmpty();
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final String expectedText = getValue(locator);
+            return !findLinks(element.getElement().getPage(), element.getElement(), expectedText::equals, true)
+                        .isEmpty();
         }
     }
 
     public static class FindByPartialLinkText extends HtmlUnitElementLocator {
 
+        @Override
+        public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
+            final String expectedText = getValue(locator);
+            return firstLink(driver,
+                    findLinks(getLastPage(driver), null, text -> text.contains(expectedText), true));
+        }
+
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            final SgmlPage lastPage = getLastPage(driver);
-            if (!(lastPage instanceof HtmlPage)) {
-                throw new IllegalStateException("Cannot find links for " + lastPage);
-            }
+            final String expectedText = getValue(locator);
+            return convertRawDomElementsToWebElements(driver,
+                    findLinks(getLastPage(driver), null, text -> text.contains(expectedText), false));
+        }
 
+        @Override
+        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
             final String expectedText = getValue(locator);
-            final List<HtmlAnchor> anchors = ((HtmlPage) lastPage).getAnchors();
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlAnchor anchor : anchors) {
-                if (anchor.asNormalizedText().contains(expectedText)) {
-                    toReturn.add(driver.toWebElement(anchor));
-                }
-            }
-            return toReturn;
+            return firstLink(element.getDriver(), findLinks(element.getElement().getPage(), element.getElement(),
+                    text -> text.contains(expectedText), true));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
             final String expectedText = getValue(locator);
-            final DomNodeList<HtmlElement> anchors = element.getElement().getElementsByTagName("a");
+            return convertRawDomElementsToWebElements(element.getDriver(), findLinks(element.getElement().getPage(),
+                    element.getElement(), text -> text.contains(expectedText), false));
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final String expectedText = getValue(locator);
+            return !findLinks(getLastPage(driver), null, text -> text.contains(expectedText), true).isEmpty();
+        }
 
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlElement anchor : anchors) {
-                if (anchor.asNormalizedText().contains(expectedText)) {
-                    toReturn.add(element.getDriver().toWebElement(anchor));
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final String expectedText = getValue(locator);
+            return !findLinks(element.getElement().getPage(), element.getElement(),
+                    text -> text.contains(expectedText), true).isEmpty();
+        }
+    }
+
+    /**
+     * @return a matcher for the elements of the page with the given tag name, following
+     *         {@link SgmlPage#getElementsByTagName(String)}
+     */
+    private static Predicate<DomElement> tagNameMatcher(final SgmlPage page, final String tagName) {
+        if ("*".equals(tagName)) {
+            return element -> true;
+        }
+        if (page.hasCaseSensitiveTagNames()) {
+            return element -> tagName.equals(element.getLocalName());
+        }
+        return element -> tagName.equalsIgnoreCase(element.getLocalName());
+    }
+
+    /**
+     * Finds the links whose normalized text matches, using the {@link LinkTextIndex} of the page.
+     *
+     * @param page the page to search
+     * @param scope if not {@code null} only descendants of this element are searched
+     * @param textMatcher the condition for the normalized text
+     * @param firstOnly whether to stop at the first match
+     * @return the links found in document order
+     */
+    private static List<? extends DomElement> findLinks(final SgmlPage page, final DomElement scope,
+            final Predicate<String> textMatcher, final boolean firstOnly) {
+        if (!(page instanceof HtmlPage)) {
+            throw new IllegalStateException("Cannot find links for " + page);
+        }
+
+        if (scope == null || scope.isAttachedToPage()) {
+            return LinkTextIndex.of((HtmlPage) page).find(scope, textMatcher, firstOnly);
+        }
+
+        // detached elements are not part of the index
+        final List<DomElement> found = new ArrayList<>();
+        for (final HtmlElement anchor : scope.getElementsByTagName("a")) {
+            if (textMatcher.test(anchor.asNormalizedText())) {
+                found.add(anchor);
+                if (firstOnly) {
+                    break;
                 }
             }
-            return toReturn;
         }
+        return found;
+    }
+
+    private static WebElement firstLink(final HtmlUnitDriver driver, final List<? extends DomElement> links) {
+        if (links.isEmpty()) {
+            throw new NoSuchElementException("Unable to locate element");
+        }
+        return driver.toWebElement(links.get(0));
     }
 
     public static class FindByClassName extends HtmlUnitElementLocator {
@@ -244,12 +555,48 @@ private String checkValue(final By locator) {
 
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            return new FindByCssSelector().findElements(driver, By.cssSelector("." + checkValue(locator)));
+            final String className = checkValue(locator);
+            final List<DomElement> indexed = driver.getElementIndex().findByClassName(
+                    getLastPage(driver), null, className);
+            if (indexed != null) {
+                return convertRawDomElementsToWebElements(driver, indexed);
+            }
+            return new FindByCssSelector().findElements(driver, By.cssSelector("." + className));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            return new FindByCssSelector().findElements(element, By.cssSelector("." + checkValue(locator)));
+            final String className = checkValue(locator);
+            final DomElement scope = element.getElement();
+            final List<DomElement> indexed = element.getDriver().getElementIndex().findByClassName(
+                    scope.getPage(), scope, className);
+            if (indexed != null) {
+                return convertRawDomElementsToWebElements(element.getDriver(), indexed);
+            }
+            return new FindByCssSelector().findElements(element, By.cssSelector("." + className));
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final String className = checkValue(locator);
+            final List<DomElement> indexed = driver.getElementIndex().findByClassName(
+                    getLastPage(driver), null, className);
+            if (indexed != null) {
+                return !indexed.isEmpty();
+            }
+            return new FindByCssSelector().exists(driver, By.cssSelector("." + className));
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final String className = checkValue(locator);
+            final DomElement scope = element.getElement();
+            final List<DomElement> indexed = element.getDriver().getElementIndex().findByClassName(
+                    scope.getPage(), scope, className);
+            if (indexed != null) {
+                return !indexed.isEmpty();
+            }
+            return new FindByCssSelector().exists(element, By.cssSelector("." + className));
         }
     }
 
@@ -260,10 +607,10 @@ public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
             final DomNode node;
 
             try {
-                node = getLastPage(driver).querySelector(getValue(locator));
+                node = HtmlUnitLocatorCache.getInstance().querySelector(getLastPage(driver), getValue(locator));
             }
             catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
             }
 
             if (node instanceof DomElement) {
@@ -275,52 +622,30 @@ public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
 
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            final DomNodeList<DomNode> allNodes;
+            final List<DomElement> allNodes;
 
             try {
-                allNodes = getLastPage(driver).querySelectorAll(getValue(locator));
+                allNodes = HtmlUnitLocatorCache.getInstance().querySelectorAll(getLastPage(driver), getValue(locator));
             }
             catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
             }
 
-            final List<WebElement> toReturn = new ArrayList<>();
-
-            for (final DomNode node : allNodes) {
-                if (node instanceof DomElement) {
-                    toReturn.add(driver.toWebElement((DomElement) node));
-                }
-                else {
-                    throw new NoSuchElementException("Returned node was not a DOM element");
-                }
-            }
-
-            return toReturn;
+            return convertRawDomElementsToWebElements(driver, allNodes);
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final DomNodeList<DomNode> allNodes;
+            final List<DomElement> allNodes;
 
             try {
-                allNodes = element.getElement().querySelectorAll(getValue(locator));
+                allNodes = HtmlUnitLocatorCache.getInstance().querySelectorAll(element.getElement(), getValue(locator));
             }
             catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
             }
 
-            final List<WebElement> toReturn = new ArrayList<>();
-
-            for (final DomNode node : allNodes) {
-                if (node instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) node));
-                }
-                else {
-                    throw new NoSuchElementException("Returned node was not a DOM element");
-                }
-            }
-
-            return toReturn;
+            return convertRawDomElementsToWebElements(element.getDriver(), allNodes);
         }
 
         @Override
@@ -328,10 +653,10 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
             final DomNode node;
 
             try {
-                node = element.getElement().querySelector(getValue(locator));
+                node = HtmlUnitLocatorCache.getInstance().querySelector(element.getElement(), getValue(locator));
             }
             catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
             }
 
             if (node instanceof DomElement) {
@@ -340,13 +665,43 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
 
             throw new NoSuchElementException("Returned node (" + node + ") was not a DOM element");
         }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            try {
+                return HtmlUnitLocatorCache.getInstance().querySelector(getLastPage(driver), getValue(locator)) != null;
+            }
+            catch (final CSSException ex) {
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
+            }
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            try {
+                return HtmlUnitLocatorCache.getInstance().querySelector(element.getElement(), getValue(locator))
+                            != null;
+            }
+            catch (final CSSException ex) {
+                throw new InvalidSelectorException("Unable to locate element using css", ex);
+            }
+        }
     }
 
     public static class FindByTagName extends HtmlUnitElementLocator {
 
         @Override
         public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
-            final NodeList allElements = getLastPage(driver).getElementsByTagName(getValue(locator));
+            final SgmlPage page = getLastPage(driver);
+            final List<DomElement> indexed = driver.getElementIndex().findByTagName(page, null, getValue(locator));
+            if (indexed != null) {
+                if (!indexed.isEmpty()) {
+                    return driver.toWebElement(indexed.get(0));
+                }
+                throw new NoSuchElementException("Unable to locate element with name: " + getValue(locator));
+            }
+
+            final NodeList allElements = page.getElementsByTagName(getValue(locator));
             if (allElements.getLength() > 0) {
                 return driver.toWebElement((HtmlElement) allElements.item(0));
             }
@@ -369,19 +724,24 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                 return Collections.emptyList();
             }
 
-            final NodeList allElements = lastPage.getElementsByTagName(name);
-            final List<WebElement> toReturn = new ArrayList<>(allElements.getLength());
-            for (int i = 0; i < allElements.getLength(); i++) {
-                final Node item = allElements.item(i);
-                if (item instanceof DomElement) {
-                    toReturn.add(driver.toWebElement((DomElement) item));
-                }
+            final List<DomElement> indexed = driver.getElementIndex().findByTagName(lastPage, null, name);
+            if (indexed != null) {
+                return convertRawDomElementsToWebElements(driver, indexed);
             }
-            return toReturn;
+
+            return convertRawDomElementsToWebElements(driver, toDomElements(lastPage.getElementsByTagName(name)));
         }
 
         @Override
         public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
+            final List<DomElement> indexed = findIndexedByTagName(element, locator);
+            if (indexed != null) {
+                if (!indexed.isEmpty()) {
+                    return element.getDriver().toWebElement(indexed.get(0));
+                }
+                throw new NoSuchElementException("Unable to locate element with name: " + getValue(locator));
+            }
+
             final NodeList allElements = element.getElement().getElementsByTagName(getValue(locator));
             if (allElements.getLength() > 0) {
                 return element.getDriver().toWebElement((HtmlElement) allElements.item(0));
@@ -392,15 +752,75 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final NodeList allElements = element.getElement().getElementsByTagName(getValue(locator));
-            final List<WebElement> toReturn = new ArrayList<>(allElements.getLength());
-            for (int i = 0; i < allElements.getLength(); i++) {
-                final Node item = allElements.item(i);
+            final List<DomElement> indexed = findIndexedByTagName(element, locator);
+            if (indexed != null) {
+                return convertRawDomElementsToWebElements(element.getDriver(), indexed);
+            }
+
+            return convertRawDomElementsToWebElements(element.getDriver(),
+                    toDomElements(element.getElement().getElementsByTagName(getValue(locator))));
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final String name = getValue(locator);
+            if ("".equals(name)) {
+                throw new InvalidSelectorException("Unable to locate element by xpath for " + getLastPage(driver));
+            }
+
+            final SgmlPage lastPage;
+            try {
+                lastPage = getLastPage(driver);
+            }
+            catch (final IllegalStateException e) {
+                return false;
+            }
+
+            final List<DomElement> indexed = driver.getElementIndex().findByTagName(lastPage, null, name);
+            if (indexed != null) {
+                return !indexed.isEmpty();
+            }
+
+            final Predicate<DomElement> matcher = tagNameMatcher(lastPage, name);
+            for (final DomElement element : lastPage.getDomElementDescendants()) {
+                if (matcher.test(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final List<DomElement> indexed = findIndexedByTagName(element, locator);
+            if (indexed != null) {
+                return !indexed.isEmpty();
+            }
+
+            // like DomElement.getElementsByTagName()
+            final String name = getValue(locator);
+            for (final HtmlElement descendant : element.getElement().getHtmlElementDescendants()) {
+                if (name.equalsIgnoreCase(descendant.getLocalName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<DomElement> toDomElements(final NodeList nodes) {
+            final List<DomElement> elements = new ArrayList<>(nodes.getLength());
+            for (int i = 0; i < nodes.getLength(); i++) {
+                final Node item = nodes.item(i);
                 if (item instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) item));
+                    elements.add((DomElement) item);
                 }
             }
-            return toReturn;
+            return elements;
+        }
+
+        private static List<DomElement> findIndexedByTagName(final HtmlUnitWebElement element, final By locator) {
+            final DomElement scope = element.getElement();
+            return element.getDriver().getElementIndex().findByTagName(scope.getPage(), scope, getValue(locator));
         }
     }
 
@@ -412,6 +832,14 @@ public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
             final SgmlPage lastPage = getLastPage(driver);
             final String value = getValue(locator);
 
+            final List<DomElement> simple = findSimple(driver, lastPage, value);
+            if (simple != null) {
+                if (simple.isEmpty()) {
+                    throw new NoSuchElementException("Unable to locate a node using " + value);
+                }
+                return driver.toWebElement(simple.get(0));
+            }
+
             try {
                 node = lastPage.getFirstByXPath(value);
             }
@@ -442,6 +870,11 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
             }
 
             final String value = getValue(locator);
+            final List<DomElement> simple = findSimple(driver, lastPage, value);
+            if (simple != null) {
+                return convertRawDomElementsToWebElements(driver, simple);
+            }
+
             final List<?> nodes;
             try {
                 nodes = lastPage.getByXPath(value);
@@ -451,7 +884,7 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                 throw new InvalidSelectorException(String.format(INVALIDXPATHERROR, value), ex);
             }
 
-            final List<WebElement> toReturn = new ArrayList<>(nodes.size());
+            final List<DomElement> toReturn = new ArrayList<>(nodes.size());
             for (final Object node : nodes) {
                 // There exist elements in the nodes list which could not be converted to
                 // WebElements.
@@ -461,18 +894,21 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                     // information in the exception. We can throw the exception immediately.
                     throw new InvalidSelectorException(String.format(INVALIDSELECTIONERROR, value, node.getClass()));
                 }
-                toReturn.add(driver.toWebElement((DomElement) node));
+                toReturn.add((DomElement) node);
             }
 
-            return toReturn;
+            return convertRawDomElementsToWebElements(driver, toReturn);
         }
 
         @Override
         public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
             final String value = getValue(locator);
+            final List<DomElement> simple = findSimple(element.getDriver(), element.getElement(), value);
             final Object node;
             try {
-                node = element.getElement().getFirstByXPath(value);
+                node = simple == null
+                        ? element.getElement().getFirstByXPath(value)
+                        : simple.isEmpty() ? null : simple.get(0);
             }
             catch (final Exception ex) {
                 // The xpath expression cannot be evaluated, so the expression is invalid
@@ -495,8 +931,12 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
             final String value = getValue(locator);
-            final List<WebElement> toReturn = new ArrayList<>();
+            final List<DomElement> simple = findSimple(element.getDriver(), element.getElement(), value);
+            if (simple != null) {
+                return convertRawDomElementsToWebElements(element.getDriver(), simple);
+            }
 
+            final List<DomElement> toReturn = new ArrayList<>();
             final List<?> domElements;
             try {
                 domElements = element.getElement().getByXPath(value);
@@ -508,7 +948,7 @@ public List<WebElement> findElements(final HtmlUnitWebElement element, final By
 
             for (final Object e : domElements) {
                 if (e instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) e));
+                    toReturn.add((DomElement) e);
                 }
                 else {
                     // The xpath selector selected something different than a WebElement. The
@@ -518,10 +958,165 @@ public List<WebElement> findElements(final HtmlUnitWebElement element, final By
                             String.format(INVALIDSELECTIONERROR, value, e.getClass().toString()));
                 }
             }
-            return toReturn;
+            return convertRawDomElementsToWebElements(element.getDriver(), toReturn);
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final SgmlPage lastPage;
+            try {
+                lastPage = getLastPage(driver);
+            }
+            catch (final IllegalStateException e) {
+                return false;
+            }
+
+            final String value = getValue(locator);
+            final List<DomElement> simple = findSimple(driver, lastPage, value);
+            if (simple != null) {
+                return !simple.isEmpty();
+            }
+            return existsByXPath(lastPage, value);
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final String value = getValue(locator);
+            final List<DomElement> simple = findSimple(element.getDriver(), element.getElement(), value);
+            if (simple != null) {
+                return !simple.isEmpty();
+            }
+            return existsByXPath(element.getElement(), value);
+        }
+
+        /**
+         * Evaluates the expression with the XPath engine, stopping at the first match.
+         */
+        private static boolean existsByXPath(final DomNode context, final String value) {
+            final Object node;
+            try {
+                node = context.getFirstByXPath(value);
+            }
+            catch (final RuntimeException ex) {
+                // The xpath expression cannot be evaluated, so the expression is invalid
+                throw new InvalidSelectorException(String.format(INVALIDXPATHERROR, value), ex);
+            }
+
+            if (node == null) {
+                return false;
+            }
+            if (node instanceof DomElement) {
+                return true;
+            }
+            // The xpath expression selected something different than a WebElement.
+            // The selector is therefore invalid
+            throw new InvalidSelectorException(String.format(INVALIDSELECTIONERROR, value, node.getClass()));
+        }
+
+        /**
+         * Evaluates expressions of a simple shape without the XPath engine.
+         *
+         * @return the elements found or {@code null} if the XPath engine has to be used
+         */
+        private static List<DomElement> findSimple(final HtmlUnitDriver driver, final DomNode context,
+                final String value) {
+            if (!SimpleXPath.isApplicable(context.getPage())) {
+                return null;
+            }
+            final SimpleXPath xpath = SimpleXPath.compile(value);
+            if (xpath == null) {
+                return null;
+            }
+            return xpath.evaluate(context, driver.getElementIndex());
         }
     }
 
+    /**
+     * Finds the elements located by a {@link ByTestId}; attached elements of html pages
+     * are looked up in the attribute index of the page, see {@link PageAttributeIndex}.
+     */
+    public static class FindByTestId extends HtmlUnitElementLocator {
+
+        @Override
+        public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
+            final SgmlPage lastPage;
+            try {
+                lastPage = getLastPage(driver);
+            }
+            catch (final IllegalStateException e) {
+                return Collections.emptyList();
+            }
+            return convertRawDomElementsToWebElements(driver, find(lastPage, null, (ByTestId) locator, false));
+        }
+
+        @Override
+        public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
+            final DomElement scope = element.getElement();
+            return convertRawDomElementsToWebElements(element.getDriver(),
+                    find(scope.getPage(), scope, (ByTestId) locator, false));
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            final SgmlPage lastPage;
+            try {
+                lastPage = getLastPage(driver);
+            }
+            catch (final IllegalStateException e) {
+                return false;
+            }
+            return !find(lastPage, null, (ByTestId) locator, true).isEmpty();
+        }
+
+        @Override
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            final DomElement scope = element.getElement();
+            return !find(scope.getPage(), scope, (ByTestId) locator, true).isEmpty();
+        }
+
+        private static List<DomElement> find(final SgmlPage page, final DomElement scope, final ByTestId locator,
+                final boolean firstOnly) {
+            final String attributeName = locator.getAttributeName();
+            final String testId = locator.getTestId();
+
+            if (page instanceof HtmlPage && !page.hasCaseSensitiveTagNames()
+                    && (scope == null || scope.isAttachedToPage())) {
+                final List<DomElement> candidates = PageAttributeIndex.of((HtmlPage) page)
+                        .find(PageAttributeIndex.Dimension.attribute(attributeName), testId);
+                if (scope == null) {
+                    return candidates;
+                }
+                final List<DomElement> found = new ArrayList<>();
+                for (final DomElement candidate : candidates) {
+                    if (candidate != scope && scope.isAncestorOf(candidate)) {
+                        found.add(candidate);
+                        if (firstOnly) {
+                            break;
+                        }
+                    }
+                }
+                return found;
+            }
+
+            // detached elements and other pages are not indexed
+            final List<DomElement> found = new ArrayList<>();
+            final DomNode root = scope == null ? page : scope;
+            for (final DomElement candidate : root.getDomElementDescendants()) {
+                if (candidate.hasAttribute(attributeName) && testId.equals(candidate.getAttribute(attributeName))) {
+                    found.add(candidate);
+                    if (firstOnly) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * The implementation of a kind of locators; custom ones can be added using
+     * {@link HtmlUnitElementFinder#register(Class, HtmlUnitElementLocator)}.
+     */
     public abstract static class HtmlUnitElementLocator {
 
         public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
@@ -544,6 +1139,23 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
 
         public abstract List<WebElement> findElements(HtmlUnitWebElement element, By locator);
 
+        // the lists returned by the finders wrap the elements only on access
+        public int count(final HtmlUnitDriver driver, final By locator) {
+            return findElements(driver, locator).size();
+        }
+
+        public boolean exists(final HtmlUnitDriver driver, final By locator) {
+            return !findElements(driver, locator).isEmpty();
+        }
+
+        public int count(final HtmlUnitWebElement element, final By locator) {
+            return findElements(element, locator).size();
+        }
+
+        public boolean exists(final HtmlUnitWebElement element, final By locator) {
+            return !findElements(element, locator).isEmpty();
+        }
+
         protected static By.Remotable getRemotable(final By locator) {
             if (!(locator instanceof By.Remotable)) {
                 throw new IllegalStateException("Cannot convert locator to Remotable");
@@ -563,16 +1175,82 @@ protected static String getValue(final By locator) {
             final By.Remotable remote = getRemotable(locator);
             return (String) remote.getRemoteParameters().value();
         }
+
+        /**
+         * @param element the element
+         * @return the driver the given element belongs to
+         */
+        protected static HtmlUnitDriver getDriver(final HtmlUnitWebElement element) {
+            return element.getDriver();
+        }
+
+        /**
+         * @param driver the driver
+         * @param element the element found
+         * @return the {@link WebElement} of the given element
+         */
+        protected static WebElement toWebElement(final HtmlUnitDriver driver, final DomElement element) {
+            return driver.toWebElement(element);
+        }
+
+        /**
+         * @param driver the driver
+         * @param elements the elements found
+         * @return the {@link WebElement}s of the given elements, wrapped on first access
+         */
+        protected static List<WebElement> toWebElements(final HtmlUnitDriver driver,
+                final List<? extends DomElement> elements) {
+            return convertRawDomElementsToWebElements(driver, elements);
+        }
     }
 
-    private static List<WebElement> convertRawDomElementsToWebElements(
-            final HtmlUnitDriver driver, final List<DomElement> nodes) {
-        final List<WebElement> toReturn = new ArrayList<>(nodes.size());
+    /**
+     * Finds the descendants of the given element having the given id or name. For elements
+     * attached to a html page the id/name maps of the page are used; the candidates
+     * are only checked for being below the scope element (O(matches x depth)) instead
+     * of walking the whole subtree.
+     *
+     * @param scope the element to search below
+     * @param attributeName either {@code id} or {@code name}
+     * @param value the attribute value
+     * @param firstOnly whether to stop after the first match
+     * @return the matching elements in document order
+     */
+    private static List<DomElement> findDescendantsByAttribute(final DomElement scope, final String attributeName,
+            final String value, final boolean firstOnly) {
+        final List<DomElement> found = new ArrayList<>();
+
+        final SgmlPage page = scope.getPage();
+        if (page instanceof HtmlPage && scope.isAttachedToPage() && !value.isEmpty()) {
+            final HtmlPage htmlPage = (HtmlPage) page;
+            final List<DomElement> candidates = "id".equals(attributeName)
+                    ? htmlPage.getElementsById(value)
+                    : htmlPage.getElementsByName(value);
+            for (final DomElement candidate : candidates) {
+                if (candidate != scope && scope.isAncestorOf(candidate)) {
+                    found.add(candidate);
+                    if (firstOnly) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
 
-        for (final DomElement node : nodes) {
-            toReturn.add(driver.toWebElement(node));
+        // detached elements and other pages are not part of the maps
+        for (final DomElement candidate : scope.getDomElementDescendants()) {
+            if (candidate.hasAttribute(attributeName) && value.equals(candidate.getAttribute(attributeName))) {
+                found.add(candidate);
+                if (firstOnly) {
+                    break;
+                }
+            }
         }
+        return found;
+    }
 
-        return toReturn;
+    private static List<WebElement> convertRawDomElementsToWebElements(
+            final HtmlUnitDriver driver, final List<? extends DomElement> nodes) {
+        return new LazyWebElementList(driver, nodes);
     }
 }
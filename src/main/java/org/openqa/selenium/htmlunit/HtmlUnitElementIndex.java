@@ -0,0 +1,300 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.HtmlElement;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Optional per-page indexes mapping tag names and class names to the elements of
+ * a page, used by the tag name and class name finders of a driver.
+ * <p>
+ * The tag names and class names are dimensions of the {@link PageAttributeIndex} of
+ * the page, built on the first lookup and kept up to date from the DOM change and
+ * attribute change notifications of the page, so later lookups don't have to traverse
+ * the DOM.
+ *
+ * @author Ronald Brill
+ */
+public final class HtmlUnitElementIndex {
+
+    // rough costs of the maps, sets and lists, used for the memory estimation only
+    private static final int BYTES_PER_KEY = 120;
+    private static final int BYTES_PER_ENTRY = 40;
+
+    // class names the css finder would accept without escaping
+    private static final Pattern SIMPLE_CLASS_NAME = Pattern.compile("-?[_a-zA-Z][_a-zA-Z0-9-]*");
+
+    private volatile boolean enabled_;
+    private final Set<PageAttributeIndex> pages_ = Collections.newSetFromMap(new WeakHashMap<>());
+
+    HtmlUnitElementIndex() {
+    }
+
+    /**
+     * @return whether the finders use the index
+     */
+    public boolean isEnabled() {
+        return enabled_;
+    }
+
+    /**
+     * Enables or disables the index; disabling drops the indexes of all pages.
+     *
+     * @param enabled whether the finders should use the index
+     */
+    public void setEnabled(final boolean enabled) {
+        enabled_ = enabled;
+        if (!enabled) {
+            final List<PageAttributeIndex> pages;
+            synchronized (pages_) {
+                pages = new ArrayList<>(pages_);
+                pages_.clear();
+            }
+            for (final PageAttributeIndex pageIndex : pages) {
+                pageIndex.drop(PageAttributeIndex.TAG_NAME);
+                pageIndex.drop(PageAttributeIndex.CLASS_NAME);
+            }
+        }
+    }
+
+    /**
+     * Finds the elements with the given tag name like {@code getElementsByTagName()}.
+     *
+     * @param page the page to search
+     * @param scope if not {@code null} only the {@link HtmlElement} descendants of this element are returned
+     * @param tagName the tag name
+     * @return the elements in document order or {@code null} if the index can't answer the lookup
+     */
+    List<DomElement> findByTagName(final SgmlPage page, final DomElement scope, final String tagName) {
+        final PageAttributeIndex pageIndex = getPageIndex(page, scope);
+        if (pageIndex == null || "*".equals(tagName)) {
+            return null;
+        }
+
+        final List<DomElement> found = pageIndex.find(PageAttributeIndex.TAG_NAME, tagName.toLowerCase(Locale.ROOT));
+        if (scope == null) {
+            return found;
+        }
+        final List<DomElement> scoped = new ArrayList<>();
+        for (final DomElement element : found) {
+            if (element instanceof HtmlElement && element != scope && scope.isAncestorOf(element)) {
+                scoped.add(element);
+            }
+        }
+        return scoped;
+    }
+
+    /**
+     * Finds the elements having the given class like the css selector {@code .className}.
+     *
+     * @param page the page to search
+     * @param scope if not {@code null} only descendants of this element are returned
+     * @param className the class name
+     * @return the elements in document order or {@code null} if the index can't answer the lookup
+     */
+    List<DomElement> findByClassName(final SgmlPage page, final DomElement scope, final String className) {
+        final PageAttributeIndex pageIndex = getPageIndex(page, scope);
+        if (pageIndex == null || !isSimpleClassName(className)) {
+            return null;
+        }
+
+        final List<DomElement> found = pageIndex.find(PageAttributeIndex.CLASS_NAME, className);
+        if (scope == null) {
+            return found;
+        }
+        final List<DomElement> scoped = new ArrayList<>();
+        for (final DomElement element : found) {
+            if (element != scope && scope.isAncestorOf(element)) {
+                scoped.add(element);
+            }
+        }
+        return scoped;
+    }
+
+    private PageAttributeIndex getPageIndex(final SgmlPage page, final DomElement scope) {
+        if (!enabled_ || !(page instanceof HtmlPage) || page.hasCaseSensitiveTagNames()
+                || (scope != null && !scope.isAttachedToPage())) {
+            return null;
+        }
+
+        final PageAttributeIndex pageIndex = PageAttributeIndex.of((HtmlPage) page);
+        synchronized (pages_) {
+            pages_.add(pageIndex);
+        }
+        return pageIndex;
+    }
+
+    /**
+     * @return a snapshot of the index statistics, covering the pages still in memory
+     */
+    public Statistics getStatistics() {
+        final List<PageAttributeIndex> pages;
+        synchronized (pages_) {
+            pages = new ArrayList<>(pages_);
+        }
+
+        int keys = 0;
+        long entries = 0;
+        long hits = 0;
+        long misses = 0;
+        long updates = 0;
+        for (final PageAttributeIndex pageIndex : pages) {
+            for (final PageAttributeIndex.Dimension dimension
+                    : Arrays.asList(PageAttributeIndex.TAG_NAME, PageAttributeIndex.CLASS_NAME)) {
+                keys += pageIndex.getKeyCount(dimension);
+                entries += pageIndex.getEntryCount(dimension);
+                hits += pageIndex.getHits(dimension);
+                misses += pageIndex.getMisses(dimension);
+            }
+            entries += pageIndex.getUnobservedCount();
+            updates += pageIndex.getUpdates();
+        }
+        return new Statistics(pages.size(), keys, entries, (long) keys * BYTES_PER_KEY + entries * BYTES_PER_ENTRY,
+                hits, misses, updates);
+    }
+
+    /**
+     * @param className the class name
+     * @return whether the class name can be used as css class selector without escaping
+     */
+    static boolean isSimpleClassName(final String className) {
+        return SIMPLE_CLASS_NAME.matcher(className).matches();
+    }
+
+    /**
+     * @param classAttribute the value of the class attribute
+     * @param className the class name
+     * @return whether the class name is one of the whitespace separated names of the attribute
+     */
+    static boolean hasClassName(final String classAttribute, final String className) {
+        final int length = className.length();
+        int index = classAttribute.indexOf(className);
+        while (index != -1) {
+            final int end = index + length;
+            if ((index == 0 || Character.isWhitespace(classAttribute.charAt(index - 1)))
+                    && (end == classAttribute.length() || Character.isWhitespace(classAttribute.charAt(end)))) {
+                return true;
+            }
+            index = classAttribute.indexOf(className, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Immutable snapshot of the index usage.
+     */
+    public static final class Statistics {
+        private final int pages_;
+        private final int keys_;
+        private final long entries_;
+        private final long estimatedBytes_;
+        private final long hits_;
+        private final long misses_;
+        private final long updates_;
+
+        Statistics(final int pages, final int keys, final long entries, final long estimatedBytes,
+                final long hits, final long misses, final long updates) {
+            pages_ = pages;
+            keys_ = keys;
+            entries_ = entries;
+            estimatedBytes_ = estimatedBytes;
+            hits_ = hits;
+            misses_ = misses;
+            updates_ = updates;
+        }
+
+        /**
+         * @return the number of indexed pages still in memory
+         */
+        public int getPages() {
+            return pages_;
+        }
+
+        /**
+         * @return the number of distinct tag names and class names indexed
+         */
+        public int getKeys() {
+            return keys_;
+        }
+
+        /**
+         * @return the number of element references held by the indexes
+         */
+        public long getEntries() {
+            return entries_;
+        }
+
+        /**
+         * @return a rough estimation of the memory used by the indexes
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes_;
+        }
+
+        /**
+         * @return the number of lookups answered without sorting
+         */
+        public long getHits() {
+            return hits_;
+        }
+
+        /**
+         * @return the number of lookups that had to sort the elements of a changed key
+         */
+        public long getMisses() {
+            return misses_;
+        }
+
+        /**
+         * @return the number of DOM changes applied to the indexes
+         */
+        public long getUpdates() {
+            return updates_;
+        }
+
+        /**
+         * @return the ratio of lookups answered without sorting, between 0 and 1
+         */
+        public double getHitRate() {
+            final long lookups = hits_ + misses_;
+            if (lookups == 0) {
+                return 0;
+            }
+            return (double) hits_ / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics[pages=" + pages_ + ", keys=" + keys_ + ", entries=" + entries_
+                    + ", estimatedBytes=" + estimatedBytes_ + ", hits=" + hits_ + ", misses=" + misses_
+                    + ", updates=" + updates_ + ", hitRate=" + getHitRate() + "]";
+        }
+    }
+}
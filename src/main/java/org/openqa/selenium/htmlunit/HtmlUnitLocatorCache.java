@@ -0,0 +1,355 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import static org.htmlunit.BrowserVersionFeatures.QUERYSELECTORALL_NOT_IN_QUIRKS;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.WebClient;
+import org.htmlunit.css.CssStyleSheet;
+import org.htmlunit.cssparser.parser.CSSErrorHandler;
+import org.htmlunit.cssparser.parser.CSSException;
+import org.htmlunit.cssparser.parser.CSSOMParser;
+import org.htmlunit.cssparser.parser.CSSParseException;
+import org.htmlunit.cssparser.parser.selector.Selector;
+import org.htmlunit.cssparser.parser.selector.SelectorList;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.javascript.HtmlUnitScriptable;
+import org.htmlunit.javascript.host.html.HTMLDocument;
+
+/**
+ * A bounded LRU cache of parsed CSS selector lists, shared by all drivers of the process.
+ * <p>
+ * HtmlUnit parses the selectors again on every {@code querySelectorAll()} call; page
+ * objects usually use the same few hundred locators over and over, so the finders of
+ * the driver match the parsed form kept here instead. The parsed selector lists are
+ * not modified by the matching and therefore shared between threads; the matching
+ * itself uses the public HtmlUnit API. XPath expressions are not cached, HtmlUnit has
+ * no public API to evaluate a compiled expression.
+ *
+ * @author Ronald Brill
+ */
+public final class HtmlUnitLocatorCache {
+
+    /** The default maximum number of cached locators. */
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private static final HtmlUnitLocatorCache INSTANCE = new HtmlUnitLocatorCache(DEFAULT_MAX_SIZE);
+
+    private final Map<String, SelectorList> compiled_;
+    // written under the lock of compiled_, read without
+    private volatile int maxSize_;
+
+    private final AtomicLong hits_ = new AtomicLong();
+    private final AtomicLong misses_ = new AtomicLong();
+    private final AtomicLong evictions_ = new AtomicLong();
+
+    HtmlUnitLocatorCache(final int maxSize) {
+        maxSize_ = maxSize;
+        compiled_ = new LinkedHashMap<String, SelectorList>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SelectorList> eldest) {
+                if (size() > maxSize_) {
+                    evictions_.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by all drivers
+     */
+    public static HtmlUnitLocatorCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Changes the maximum number of cached locators; the least recently used
+     * entries are dropped if the cache is larger. Zero disables the cache.
+     *
+     * @param maxSize the new maximum size
+     */
+    public void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+
+        synchronized (compiled_) {
+            maxSize_ = maxSize;
+            final Iterator<String> keys = compiled_.keySet().iterator();
+            while (compiled_.size() > maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions_.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached locators; the statistics are not reset.
+     */
+    public void clear() {
+        synchronized (compiled_) {
+            compiled_.clear();
+        }
+    }
+
+    /**
+     * Evaluates the given CSS selectors like {@link DomNode#querySelectorAll(String)}.
+     *
+     * @param node the context node
+     * @param selectors the CSS selectors
+     * @return the elements found
+     * @throws CSSException in case the selectors are invalid
+     */
+    List<DomElement> querySelectorAll(final DomNode node, final String selectors) {
+        return select(node, selectors, false);
+    }
+
+    /**
+     * Evaluates the given CSS selectors like {@link DomNode#querySelector(String)}.
+     *
+     * @param node the context node
+     * @param selectors the CSS selectors
+     * @return the first element found or {@code null}
+     * @throws CSSException in case the selectors are invalid
+     */
+    DomElement querySelector(final DomNode node, final String selectors) {
+        final List<DomElement> found = select(node, selectors, true);
+        if (found.isEmpty()) {
+            return null;
+        }
+        return found.get(0);
+    }
+
+    private List<DomElement> select(final DomNode node, final String selectors, final boolean firstOnly) {
+        final Predicate<DomElement> matcher = compileSelectors(node, selectors);
+        if (matcher == null) {
+            final List<DomElement> found = new ArrayList<>();
+            for (final DomNode domNode : node.querySelectorAll(selectors)) {
+                found.add((DomElement) domNode);
+            }
+            return found;
+        }
+
+        final List<DomElement> found = new ArrayList<>();
+        for (final DomElement element : node.getDomElementDescendants()) {
+            if (matcher.test(element)) {
+                found.add(element);
+                if (firstOnly) {
+                    return found;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Compiles the given CSS selectors into a matcher for the descendants of the given
+     * node; this allows to evaluate several selectors during a single traversal.
+     *
+     * @param node the context node
+     * @param selectors the CSS selectors
+     * @return the matcher or {@code null} if the cache is disabled
+     * @throws CSSException in case the selectors are invalid
+     */
+    Predicate<DomElement> compileSelectors(final DomNode node, final String selectors) {
+        if (maxSize_ == 0) {
+            return null;
+        }
+
+        final WebClient webClient = node.getPage().getWebClient();
+        SelectorList selectorList = lookup(selectors);
+        if (selectorList == null) {
+            selectorList = parseSelectors(webClient, selectors);
+            store(selectors, selectorList);
+        }
+
+        // depends on the document, therefore done for every call
+        int documentMode = 9;
+        final BrowserVersion browserVersion = webClient.getBrowserVersion();
+        if (browserVersion.hasFeature(QUERYSELECTORALL_NOT_IN_QUIRKS)) {
+            final HtmlUnitScriptable document = node.getPage().getScriptableObject();
+            if (document instanceof HTMLDocument) {
+                documentMode = ((HTMLDocument) document).getDocumentMode();
+            }
+        }
+        CssStyleSheet.validateSelectors(selectorList, documentMode, node);
+
+        final SelectorList compiled = selectorList;
+        return element -> {
+            for (final Selector selector : compiled) {
+                if (CssStyleSheet.selects(browserVersion, selector, element, null, true, true)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static SelectorList parseSelectors(final WebClient webClient, final String selectors) {
+        try (WebClient.PooledCSS3Parser pooledParser = webClient.getCSS3Parser()) {
+            final CSSOMParser parser = new CSSOMParser(pooledParser);
+            final ErrorDetector errorDetector = new ErrorDetector();
+            parser.setErrorHandler(errorDetector);
+
+            final SelectorList selectorList = parser.parseSelectors(selectors);
+            if (errorDetector.errorDetected_ || selectorList == null) {
+                throw new CSSException("Invalid selectors: '" + selectors + "'");
+            }
+            return selectorList;
+        }
+        catch (final IOException e) {
+            throw new CSSException("Error parsing CSS selectors from '" + selectors + "': " + e.getMessage());
+        }
+    }
+
+    private SelectorList lookup(final String selectors) {
+        final SelectorList value;
+        synchronized (compiled_) {
+            value = compiled_.get(selectors);
+        }
+        if (value == null) {
+            misses_.incrementAndGet();
+        }
+        else {
+            hits_.incrementAndGet();
+        }
+        return value;
+    }
+
+    private void store(final String selectors, final SelectorList value) {
+        synchronized (compiled_) {
+            compiled_.put(selectors, value);
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    public Statistics getStatistics() {
+        final int size;
+        final int maxSize;
+        synchronized (compiled_) {
+            size = compiled_.size();
+            maxSize = maxSize_;
+        }
+        return new Statistics(size, maxSize, hits_.get(), misses_.get(), evictions_.get());
+    }
+
+    private static final class ErrorDetector implements CSSErrorHandler {
+        private boolean errorDetected_;
+
+        @Override
+        public void warning(final CSSParseException exception) throws CSSException {
+            // ignore
+        }
+
+        @Override
+        public void error(final CSSParseException exception) throws CSSException {
+            errorDetected_ = true;
+        }
+
+        @Override
+        public void fatalError(final CSSParseException exception) throws CSSException {
+            errorDetected_ = true;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the cache usage.
+     */
+    public static final class Statistics {
+        private final int size_;
+        private final int maxSize_;
+        private final long hits_;
+        private final long misses_;
+        private final long evictions_;
+
+        Statistics(final int size, final int maxSize, final long hits, final long misses, final long evictions) {
+            size_ = size;
+            maxSize_ = maxSize;
+            hits_ = hits;
+            misses_ = misses;
+            evictions_ = evictions;
+        }
+
+        /**
+         * @return the number of cached locators
+         */
+        public int getSize() {
+            return size_;
+        }
+
+        /**
+         * @return the maximum number of cached locators
+         */
+        public int getMaxSize() {
+            return maxSize_;
+        }
+
+        /**
+         * @return the number of lookups served from the cache
+         */
+        public long getHits() {
+            return hits_;
+        }
+
+        /**
+         * @return the number of lookups that had to compile the locator
+         */
+        public long getMisses() {
+            return misses_;
+        }
+
+        /**
+         * @return the number of locators dropped because the cache was full
+         */
+        public long getEvictions() {
+            return evictions_;
+        }
+
+        /**
+         * @return the ratio of lookups served from the cache, between 0 and 1
+         */
+        public double getHitRate() {
+            final long lookups = hits_ + misses_;
+            if (lookups == 0) {
+                return 0;
+            }
+            return (double) hits_ / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics[size=" + size_ + ", maxSize=" + maxSize_ + ", hits=" + hits_
+                    + ", misses=" + misses_ + ", evictions=" + evictions_ + ", hitRate=" + getHitRate() + "]";
+        }
+    }
+}
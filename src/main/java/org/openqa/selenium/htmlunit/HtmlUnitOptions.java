@@ -194,7 +194,7 @@ private WebClient getWebClient() {
     }
 
     @Override
-    public WebDriver.Timeouts timeouts() {
+    public HtmlUnitTimeouts timeouts() {
         return timeouts_;
     }
 
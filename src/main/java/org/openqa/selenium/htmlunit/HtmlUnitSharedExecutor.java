@@ -0,0 +1,289 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide, bounded executor for the commands of all drivers using it.
+ * <p>
+ * Drivers use it if created with the {@link HtmlUnitDriver#SHARED_EXECUTOR_CAPABILITY}
+ * or if {@link #setUsedByDefault(boolean)} is enabled. Using one bounded pool instead of
+ * one pool per driver gives a predictable number of threads, no matter how many
+ * sessions are open (or leaked). Commands exceeding the queue capacity are rejected
+ * with a {@link RejectedExecutionException}.
+ * <p>
+ * Please note: a command waiting for an alert to be handled keeps its thread, so the
+ * thread count has to be large enough for the number of concurrently open alerts.
+ * {@link HtmlUnitDriver#setExecutor(Executor)} still overrides the executor per driver.
+ *
+ * @author Ronald Brill
+ */
+public final class HtmlUnitSharedExecutor implements Executor {
+
+    /** The default maximum number of threads. */
+    public static final int DEFAULT_MAX_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+    /** The default capacity of the queue of waiting commands. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static int MaxThreads_ = DEFAULT_MAX_THREADS;
+    private static int QueueCapacity_ = DEFAULT_QUEUE_CAPACITY;
+    private static HtmlUnitSharedExecutor Instance_;
+    private static volatile boolean UsedByDefault_;
+
+    private final ThreadPoolExecutor pool_;
+    private final int queueCapacity_;
+    private final AtomicLong submitted_ = new AtomicLong();
+    private final AtomicLong rejected_ = new AtomicLong();
+    private final AtomicLong queueWaitNanos_ = new AtomicLong();
+    private final AtomicInteger peakQueueDepth_ = new AtomicInteger();
+
+    HtmlUnitSharedExecutor(final int maxThreads, final int queueCapacity) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads has to be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity has to be positive");
+        }
+        queueCapacity_ = queueCapacity;
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory = r -> {
+            final Thread thread = new Thread(r, "htmlunit-driver-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        pool_ = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        pool_.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Configures the size of the shared executor; has to be called before the
+     * executor is used for the first time.
+     *
+     * @param maxThreads the maximum number of threads
+     * @param queueCapacity the maximum number of commands waiting for a thread
+     */
+    public static synchronized void configure(final int maxThreads, final int queueCapacity) {
+        if (Instance_ != null) {
+            throw new IllegalStateException("The shared executor is already in use");
+        }
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads has to be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity has to be positive");
+        }
+        MaxThreads_ = maxThreads;
+        QueueCapacity_ = queueCapacity;
+    }
+
+    /**
+     * @return the shared executor, created on first use
+     */
+    public static synchronized HtmlUnitSharedExecutor getInstance() {
+        if (Instance_ == null) {
+            Instance_ = new HtmlUnitSharedExecutor(MaxThreads_, QueueCapacity_);
+        }
+        return Instance_;
+    }
+
+    /**
+     * @param usedByDefault whether drivers created without the
+     *        {@link HtmlUnitDriver#SHARED_EXECUTOR_CAPABILITY} use the shared executor
+     */
+    public static void setUsedByDefault(final boolean usedByDefault) {
+        UsedByDefault_ = usedByDefault;
+    }
+
+    /**
+     * @return whether drivers created without the
+     *         {@link HtmlUnitDriver#SHARED_EXECUTOR_CAPABILITY} use the shared executor
+     */
+    public static boolean isUsedByDefault() {
+        return UsedByDefault_;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final long enqueued = System.nanoTime();
+        try {
+            pool_.execute(() -> {
+                queueWaitNanos_.addAndGet(System.nanoTime() - enqueued);
+                command.run();
+            });
+        }
+        catch (final RejectedExecutionException e) {
+            rejected_.incrementAndGet();
+            throw e;
+        }
+        submitted_.incrementAndGet();
+        peakQueueDepth_.accumulateAndGet(pool_.getQueue().size(), Math::max);
+    }
+
+    /**
+     * @return a snapshot of the current executor statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(pool_.getQueue().size(), queueCapacity_, peakQueueDepth_.get(),
+                pool_.getActiveCount(), pool_.getPoolSize(), pool_.getLargestPoolSize(),
+                pool_.getMaximumPoolSize(), submitted_.get(), pool_.getCompletedTaskCount(),
+                rejected_.get(), queueWaitNanos_.get());
+    }
+
+    /**
+     * Immutable snapshot of the executor usage.
+     */
+    public static final class Statistics {
+        private final int queueDepth_;
+        private final int queueCapacity_;
+        private final int peakQueueDepth_;
+        private final int activeThreads_;
+        private final int poolSize_;
+        private final int largestPoolSize_;
+        private final int maxThreads_;
+        private final long submitted_;
+        private final long completed_;
+        private final long rejected_;
+        private final long queueWaitNanos_;
+
+        Statistics(final int queueDepth, final int queueCapacity, final int peakQueueDepth,
+                final int activeThreads, final int poolSize, final int largestPoolSize, final int maxThreads,
+                final long submitted, final long completed, final long rejected, final long queueWaitNanos) {
+            queueDepth_ = queueDepth;
+            queueCapacity_ = queueCapacity;
+            peakQueueDepth_ = peakQueueDepth;
+            activeThreads_ = activeThreads;
+            poolSize_ = poolSize;
+            largestPoolSize_ = largestPoolSize;
+            maxThreads_ = maxThreads;
+            submitted_ = submitted;
+            completed_ = completed;
+            rejected_ = rejected;
+            queueWaitNanos_ = queueWaitNanos;
+        }
+
+        /**
+         * @return the number of commands waiting for a thread
+         */
+        public int getQueueDepth() {
+            return queueDepth_;
+        }
+
+        /**
+         * @return the maximum number of commands waiting for a thread
+         */
+        public int getQueueCapacity() {
+            return queueCapacity_;
+        }
+
+        /**
+         * @return the highest queue depth seen so far
+         */
+        public int getPeakQueueDepth() {
+            return peakQueueDepth_;
+        }
+
+        /**
+         * @return the number of threads currently running a command
+         */
+        public int getActiveThreads() {
+            return activeThreads_;
+        }
+
+        /**
+         * @return the number of threads currently alive
+         */
+        public int getPoolSize() {
+            return poolSize_;
+        }
+
+        /**
+         * @return the highest number of threads alive at the same time
+         */
+        public int getLargestPoolSize() {
+            return largestPoolSize_;
+        }
+
+        /**
+         * @return the maximum number of threads
+         */
+        public int getMaxThreads() {
+            return maxThreads_;
+        }
+
+        /**
+         * @return the number of commands accepted so far
+         */
+        public long getSubmitted() {
+            return submitted_;
+        }
+
+        /**
+         * @return the number of commands finished so far
+         */
+        public long getCompleted() {
+            return completed_;
+        }
+
+        /**
+         * @return the number of commands rejected because the queue was full
+         */
+        public long getRejected() {
+            return rejected_;
+        }
+
+        /**
+         * @return the share of busy threads, between {@code 0} and {@code 1}
+         */
+        public double getSaturation() {
+            return (double) activeThreads_ / maxThreads_;
+        }
+
+        /**
+         * @return the average time a command waited for a thread
+         */
+        public Duration getAverageQueueWait() {
+            final long started = completed_ + activeThreads_;
+            if (started == 0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(queueWaitNanos_ / started);
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics[queueDepth=" + queueDepth_ + "/" + queueCapacity_
+                    + ", peakQueueDepth=" + peakQueueDepth_
+                    + ", activeThreads=" + activeThreads_ + "/" + maxThreads_
+                    + ", poolSize=" + poolSize_ + ", largestPoolSize=" + largestPoolSize_
+                    + ", submitted=" + submitted_ + ", completed=" + completed_ + ", rejected=" + rejected_
+                    + ", avgQueueWait=" + getAverageQueueWait() + "]";
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class HtmlUnitTimeouts implements WebDriver.Timeouts {
     private long scriptTimeout_ = 0;
     private long pageLoadTimeout_ = 0;
     private WebClient webClient_ = null;
+    private int initialWebClientTimeout_;
 
     public HtmlUnitTimeouts() {
         // nop
@@ -41,6 +42,19 @@ public HtmlUnitTimeouts() {
 
     public HtmlUnitTimeouts(final WebClient webClient) {
         this.webClient_ = webClient;
+        if (webClient != null) {
+            initialWebClientTimeout_ = webClient.getOptions().getTimeout();
+        }
+    }
+
+    /**
+     * Restores all timeouts to the values this instance was created with.
+     */
+    void reset() {
+        implicitWait_ = 0;
+        scriptTimeout_ = 0;
+        pageLoadTimeout_ = 0;
+        setPageLoadTimeoutForWebClient(webClient_, initialWebClientTimeout_);
     }
 
     @Override
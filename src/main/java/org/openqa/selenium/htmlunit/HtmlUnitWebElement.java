@@ -24,7 +24,6 @@
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
 
 import org.htmlunit.ScriptResult;
 import org.htmlunit.corejs.javascript.ScriptRuntime;
@@ -230,14 +229,11 @@ else if (!element_.getAttribute("contenteditable").equals(ATTRIBUTE_NOT_DEFINED)
     void verifyCanInteractWithElement(final boolean ignoreDisabled) {
         assertElementNotStale();
 
-        final Boolean displayed = driver_.implicitlyWaitFor(new Callable<Boolean>() {
-            @Override
-            public Boolean call() throws Exception {
-                return isDisplayed();
-            }
-        });
+        if (!isActionable(ignoreDisabled)) {
+            waitTillActionable(ignoreDisabled);
+        }
 
-        if (displayed == null || !displayed) {
+        if (!element_.isDisplayed()) {
             throw new ElementNotInteractableException("You may only interact with visible elements");
         }
 
@@ -246,6 +242,46 @@ public Boolean call() throws Exception {
         }
     }
 
+    /**
+     * Waits implicitly till the element is displayed (and enabled). The element is checked
+     * again only if the page changed in a way that may affect it, or a JavaScript job
+     * completed; it is checked for staleness only if it may have been detached.
+     */
+    private void waitTillActionable(final boolean ignoreDisabled) {
+        final long implicitWait = driver_.getImplicitWaitMillis();
+        if (implicitWait <= 0) {
+            return;
+        }
+        final long end = System.currentTimeMillis() + implicitWait;
+
+        final ActionabilityWatcher watcher = new ActionabilityWatcher(element_);
+        watcher.start();
+        try {
+            while (true) {
+                final long changes = watcher.getSignal().getChanges();
+                if (watcher.checkRemoved() || element_.getPage() != driver_.getCurrentWindow().lastPage()) {
+                    assertElementNotStale();
+                }
+                if (isActionable(ignoreDisabled)) {
+                    return;
+                }
+                if (System.currentTimeMillis() >= end || !driver_.waitForChange(watcher.getSignal(), changes, end)) {
+                    return;
+                }
+            }
+        }
+        finally {
+            watcher.stop();
+        }
+    }
+
+    private boolean isActionable(final boolean ignoreDisabled) {
+        if (!element_.isDisplayed()) {
+            return false;
+        }
+        return ignoreDisabled || !(element_ instanceof DisabledElement) || !((DisabledElement) element_).isDisabled();
+    }
+
     void switchFocusToThisIfNeeded() {
         final HtmlUnitWebElement oldActiveElement = (HtmlUnitWebElement) driver_.switchTo().activeElement();
 
@@ -581,19 +617,37 @@ public List<WebElement> getElementsByTagName(final String tagName) {
     @Override
     public WebElement findElement(final By by) {
         driver_.getAlert().ensureUnlocked();
-        return driver_.implicitlyWaitFor(() -> {
-            assertElementNotStale();
-            return driver_.findElement(this, by);
-        });
+        return driver_.findElement(this, by);
     }
 
     @Override
     public List<WebElement> findElements(final By by) {
         driver_.getAlert().ensureUnlocked();
-        return driver_.implicitlyWaitFor(() -> {
-            assertElementNotStale();
-            return driver_.findElements(this, by);
-        });
+        return driver_.findElements(this, by);
+    }
+
+    /**
+     * Counts the descendants found by the given locator. No {@link WebElement} is created
+     * for the elements found; there is no implicit wait.
+     *
+     * @param by the locator
+     * @return the number of elements found
+     */
+    public int count(final By by) {
+        assertElementNotStale();
+        return driver_.count(this, by);
+    }
+
+    /**
+     * Checks if the given locator finds any descendant, stopping at the first match if
+     * the locator allows. No {@link WebElement} is created; there is no implicit wait.
+     *
+     * @param by the locator
+     * @return whether an element was found
+     */
+    public boolean exists(final By by) {
+        assertElementNotStale();
+        return driver_.exists(this, by);
     }
 
     private HtmlUnitWebElement findParentForm() {
@@ -0,0 +1,242 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.htmlunit.Page;
+import org.htmlunit.WebWindow;
+import org.htmlunit.WebWindowImpl;
+import org.htmlunit.javascript.background.JavaScriptJob;
+import org.htmlunit.javascript.background.JavaScriptJobManager;
+
+/**
+ * Informs listeners about every JavaScript job completed in a single window (timers,
+ * intervals, asynchronous requests), e.g. to evaluate a wait condition again; the
+ * number of pending jobs alone doesn't show that a job ran, a completed job may have
+ * scheduled the next one.
+ * <p>
+ * The tracker replaces the job manager of the window and wraps every job added from
+ * then on; HtmlUnit runs the jobs by the original manager. Jobs added before are not
+ * tracked, so the tracker is attached as soon as a window is opened.
+ */
+final class JobCompletionTracker implements JavaScriptJobManager {
+
+    // not the window, HtmlUnit synchronizes on parts of the window while running scripts
+    private static final Object LOCK = new Object();
+
+    private final JavaScriptJobManager jobManager_;
+    private final transient Set<Runnable> listeners_ = new CopyOnWriteArraySet<>();
+
+    private JobCompletionTracker(final JavaScriptJobManager jobManager) {
+        jobManager_ = jobManager;
+    }
+
+    /**
+     * Returns the tracker of the given window, attaching a new one if required.
+     *
+     * @param window the window
+     * @return the tracker or {@code null} if the jobs of the window can't be tracked
+     */
+    static JobCompletionTracker of(final WebWindow window) {
+        synchronized (LOCK) {
+            final JavaScriptJobManager jobManager = window.getJobManager();
+            if (jobManager instanceof JobCompletionTracker) {
+                return (JobCompletionTracker) jobManager;
+            }
+            if (jobManager == null || !(window instanceof WebWindowImpl)) {
+                return null;
+            }
+            final JobCompletionTracker tracker = new JobCompletionTracker(jobManager);
+            ((WebWindowImpl) window).setJobManager(tracker);
+            return tracker;
+        }
+    }
+
+    /**
+     * Adds a listener called after every completed job; adding the same listener twice
+     * has no effect.
+     *
+     * @param listener the listener
+     */
+    void addListener(final Runnable listener) {
+        listeners_.add(listener);
+    }
+
+    /**
+     * Removes the given listener.
+     *
+     * @param listener the listener
+     */
+    void removeListener(final Runnable listener) {
+        listeners_.remove(listener);
+    }
+
+    private void completed() {
+        for (final Runnable listener : listeners_) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public int getJobCount() {
+        return jobManager_.getJobCount();
+    }
+
+    @Override
+    public int getJobCount(final JavaScriptJobFilter filter) {
+        return jobManager_.getJobCount(filter);
+    }
+
+    @Override
+    public int addJob(final JavaScriptJob job, final Page page) {
+        return jobManager_.addJob(job instanceof TrackedJob ? job : new TrackedJob(job), page);
+    }
+
+    @Override
+    public void removeJob(final int id) {
+        jobManager_.removeJob(id);
+    }
+
+    @Override
+    public void removeAllJobs() {
+        jobManager_.removeAllJobs();
+    }
+
+    @Override
+    public void stopJob(final int id) {
+        jobManager_.stopJob(id);
+    }
+
+    @Override
+    public int waitForJobs(final long timeoutMillis) {
+        return jobManager_.waitForJobs(timeoutMillis);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis) {
+        return jobManager_.waitForJobsStartingBefore(delayMillis);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis, final JavaScriptJobFilter filter) {
+        return jobManager_.waitForJobsStartingBefore(delayMillis, filter);
+    }
+
+    @Override
+    public void shutdown() {
+        jobManager_.shutdown();
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob() {
+        return jobManager_.getEarliestJob();
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob(final JavaScriptJobFilter filter) {
+        return jobManager_.getEarliestJob(filter);
+    }
+
+    @Override
+    public boolean runSingleJob(final JavaScriptJob job) {
+        return jobManager_.runSingleJob(job);
+    }
+
+    @Override
+    public String jobStatusDump(final JavaScriptJobFilter filter) {
+        return jobManager_.jobStatusDump(filter);
+    }
+
+    /**
+     * The listeners are not serialized, a deserialized window keeps the original manager.
+     *
+     * @return the original job manager
+     */
+    private Object readResolve() {
+        return jobManager_;
+    }
+
+    /**
+     * A job informing the listeners after it ran; a periodic job is scheduled again
+     * as it is, so it informs them after every run.
+     */
+    private final class TrackedJob implements JavaScriptJob {
+        private final JavaScriptJob job_;
+
+        TrackedJob(final JavaScriptJob job) {
+            job_ = job;
+        }
+
+        @Override
+        public void run() {
+            try {
+                job_.run();
+            }
+            finally {
+                completed();
+            }
+        }
+
+        @Override
+        public int compareTo(final JavaScriptJob other) {
+            return job_.compareTo(other);
+        }
+
+        @Override
+        public Integer getId() {
+            return job_.getId();
+        }
+
+        @Override
+        public void setId(final Integer id) {
+            job_.setId(id);
+        }
+
+        @Override
+        public long getTargetExecutionTime() {
+            return job_.getTargetExecutionTime();
+        }
+
+        @Override
+        public void setTargetExecutionTime(final long targetExecutionTime) {
+            job_.setTargetExecutionTime(targetExecutionTime);
+        }
+
+        @Override
+        public Integer getPeriod() {
+            return job_.getPeriod();
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return job_.isPeriodic();
+        }
+
+        @Override
+        public boolean isExecuteAsap() {
+            return job_.isExecuteAsap();
+        }
+
+        @Override
+        public String toString() {
+            return job_.toString();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.htmlunit.html.DomElement;
+import org.openqa.selenium.WebElement;
+
+/**
+ * The result of a {@code findElements()} call. The elements found are wrapped into
+ * {@link HtmlUnitWebElement}s (and therefore registered with the driver) only when
+ * accessed; asking for the size or for the first few elements of a huge result
+ * does not create a wrapper for every element.
+ * <p>
+ * The list is modifiable like the lists returned before; the first modification
+ * wraps all remaining elements.
+ */
+final class LazyWebElementList extends AbstractList<WebElement> implements RandomAccess {
+
+    private final HtmlUnitDriver driver_;
+    private final DomElement[] nodes_;
+    private WebElement[] elements_;
+    private List<WebElement> modified_;
+
+    /**
+     * Ctor.
+     *
+     * @param driver the driver creating the wrappers
+     * @param nodes the elements found; the list is copied
+     */
+    LazyWebElementList(final HtmlUnitDriver driver, final List<? extends DomElement> nodes) {
+        driver_ = driver;
+        nodes_ = nodes.toArray(new DomElement[0]);
+    }
+
+    @Override
+    public WebElement get(final int index) {
+        if (modified_ != null) {
+            return modified_.get(index);
+        }
+
+        final DomElement node = nodes_[index];
+        if (elements_ == null) {
+            elements_ = new WebElement[nodes_.length];
+        }
+        WebElement element = elements_[index];
+        if (element == null) {
+            element = driver_.toWebElement(node);
+            elements_[index] = element;
+        }
+        return element;
+    }
+
+    @Override
+    public int size() {
+        if (modified_ != null) {
+            return modified_.size();
+        }
+        return nodes_.length;
+    }
+
+    @Override
+    public WebElement set(final int index, final WebElement element) {
+        return modifiable().set(index, element);
+    }
+
+    @Override
+    public void add(final int index, final WebElement element) {
+        modCount++;
+        modifiable().add(index, element);
+    }
+
+    @Override
+    public WebElement remove(final int index) {
+        modCount++;
+        return modifiable().remove(index);
+    }
+
+    private List<WebElement> modifiable() {
+        if (modified_ == null) {
+            final List<WebElement> modified = new ArrayList<>(nodes_.length);
+            for (int i = 0; i < nodes_.length; i++) {
+                modified.add(get(i));
+            }
+            modified_ = modified;
+            elements_ = null;
+        }
+        return modified_;
+    }
+}
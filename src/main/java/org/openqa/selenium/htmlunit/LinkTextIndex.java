@@ -0,0 +1,166 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.htmlunit.css.ComputedCssStyleDeclaration;
+import org.htmlunit.css.CssStyleSheet;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.HtmlAnchor;
+import org.htmlunit.html.HtmlElement;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Caches the anchors of a page and their normalized text for the link text finders.
+ * <p>
+ * The anchors are collected once per DOM version of the page, changes of style and link
+ * elements included. The normalized text depends on the visibility of the nodes and
+ * therefore on the styles of the whole page; scripts may change them through the CSSOM
+ * without any DOM change. The texts are dropped as well when HtmlUnit drops its cached
+ * styles (e.g. for a disabled style element) and when the number of rules of a style
+ * sheet changed; HtmlUnit keeps its cached styles for inserted or deleted rules, the
+ * index clears them in this case.
+ */
+final class LinkTextIndex {
+
+    private static final String USER_DATA_KEY = LinkTextIndex.class.getName();
+    // not the page, HtmlUnit holds the page's monitor while running scripts
+    private static final Object LOCK = new Object();
+
+    private final HtmlPage page_;
+    private final PageChangeTracker tracker_;
+    private final Map<HtmlAnchor, String> texts_ = new IdentityHashMap<>();
+
+    private long version_ = -1;
+    private List<HtmlAnchor> anchors_;
+    private List<CssStyleSheet> styleSheets_;
+    private long styleSheetRules_;
+    private ComputedCssStyleDeclaration rootStyle_;
+
+    private LinkTextIndex(final HtmlPage page) {
+        page_ = page;
+        tracker_ = PageChangeTracker.of(page);
+    }
+
+    /**
+     * Returns the index of the given page, attaching a new one if required.
+     *
+     * @param page the page
+     * @return the index
+     */
+    static LinkTextIndex of(final HtmlPage page) {
+        synchronized (LOCK) {
+            LinkTextIndex index = (LinkTextIndex) page.getUserData(USER_DATA_KEY);
+            if (index == null) {
+                index = new LinkTextIndex(page);
+                page.setUserData(USER_DATA_KEY, index, null);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Finds the anchors whose normalized text matches.
+     *
+     * @param scope if not {@code null} only descendants of this element are returned
+     * @param textMatcher the condition for the normalized text
+     * @param firstOnly whether to stop at the first match
+     * @return the anchors found in document order
+     */
+    synchronized List<HtmlAnchor> find(final DomElement scope, final Predicate<String> textMatcher,
+            final boolean firstOnly) {
+        final long version = tracker_.getVersion();
+        if (version != version_) {
+            anchors_ = null;
+            styleSheets_ = page_.getStyleSheets();
+            styleSheetRules_ = countRules();
+            version_ = version;
+            resetTexts();
+        }
+        else {
+            final long rules = countRules();
+            if (rules != styleSheetRules_) {
+                styleSheetRules_ = rules;
+                page_.clearComputedStyles();
+                resetTexts();
+            }
+            else if (rootStyle_ != cachedRootStyle()) {
+                resetTexts();
+            }
+        }
+
+        final List<HtmlAnchor> found = new ArrayList<>();
+        if (scope == null) {
+            if (anchors_ == null) {
+                anchors_ = page_.getAnchors();
+            }
+            for (final HtmlAnchor anchor : anchors_) {
+                if (matches(anchor, textMatcher)) {
+                    found.add(anchor);
+                    if (firstOnly) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
+
+        for (final HtmlElement element : scope.getHtmlElementDescendants()) {
+            if (element instanceof HtmlAnchor && matches((HtmlAnchor) element, textMatcher)) {
+                found.add((HtmlAnchor) element);
+                if (firstOnly) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean matches(final HtmlAnchor anchor, final Predicate<String> textMatcher) {
+        return textMatcher.test(texts_.computeIfAbsent(anchor, HtmlAnchor::asNormalizedText));
+    }
+
+    /**
+     * Drops the cached texts and remembers the cached style of the root element; HtmlUnit
+     * replaces it whenever it drops its cached styles.
+     */
+    private void resetTexts() {
+        texts_.clear();
+        final DomElement root = page_.getDocumentElement();
+        rootStyle_ = root == null ? null : page_.getEnclosingWindow().getComputedStyle(root, null);
+    }
+
+    private ComputedCssStyleDeclaration cachedRootStyle() {
+        final DomElement root = page_.getDocumentElement();
+        return root == null ? null : page_.getStyleFromCache(root, null);
+    }
+
+    private long countRules() {
+        long rules = 0;
+        for (final CssStyleSheet styleSheet : styleSheets_) {
+            if (styleSheet != null && styleSheet.getWrappedSheet() != null) {
+                rules = rules * 31 + styleSheet.getWrappedSheet().getCssRules().getLength();
+            }
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,463 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlAttributeChangeEvent;
+import org.htmlunit.html.HtmlAttributeChangeListener;
+import org.htmlunit.html.HtmlElement;
+import org.htmlunit.html.HtmlPage;
+import org.w3c.dom.Node;
+
+/**
+ * Maps keys derived from the elements of a page (the tag name, the class names or the
+ * value of an attribute, see {@link Dimension}) to the elements, like the id map of the
+ * page does for the id attribute.
+ * <p>
+ * There is at most one index per page, attached as user data and kept up to date from
+ * a single pair of DOM change and attribute change listeners. A dimension is built by
+ * traversing the page on its first lookup; when the last dimension is dropped, the
+ * listeners are removed again. The elements of a key are sorted into document order
+ * lazily, only if the key was changed since the last lookup.
+ * <p>
+ * Elements that are no {@link HtmlElement} (e.g. SVG) don't report attribute changes;
+ * their attributes are checked on every lookup instead.
+ */
+final class PageAttributeIndex implements DomChangeListener, HtmlAttributeChangeListener {
+
+    /** The lower case tag names. */
+    static final Dimension TAG_NAME = new Dimension(null, false);
+
+    /** The whitespace separated names of the class attribute. */
+    static final Dimension CLASS_NAME = new Dimension("class", true);
+
+    static final Comparator<DomNode> DOCUMENT_ORDER = (a, b) -> {
+        if (a == b) {
+            return 0;
+        }
+        return (a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING) != 0 ? -1 : 1;
+    };
+
+    private static final String USER_DATA_KEY = PageAttributeIndex.class.getName();
+    // not the page, HtmlUnit holds the page's monitor while running scripts
+    private static final Object LOCK = new Object();
+
+    private final HtmlPage page_;
+    private final Map<Dimension, Keys> dimensions_ = new HashMap<>();
+    // elements not reporting attribute changes
+    private final Set<DomElement> unobserved_ = newIdentitySet();
+    private boolean detached_;
+    private long updates_;
+
+    private PageAttributeIndex(final HtmlPage page) {
+        page_ = page;
+        synchronized (this) {
+            page.addDomChangeListener(this);
+            page.addHtmlAttributeChangeListener(this);
+            for (final DomElement element : page.getDomElementDescendants()) {
+                if (!(element instanceof HtmlElement)) {
+                    unobserved_.add(element);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given page, attaching a new one if required.
+     *
+     * @param page the page
+     * @return the index
+     */
+    static PageAttributeIndex of(final HtmlPage page) {
+        synchronized (LOCK) {
+            PageAttributeIndex index = (PageAttributeIndex) page.getUserData(USER_DATA_KEY);
+            if (index == null) {
+                index = new PageAttributeIndex(page);
+                page.setUserData(USER_DATA_KEY, index, null);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Finds the elements having the given key, building the dimension if required.
+     *
+     * @param dimension the dimension
+     * @param key the key
+     * @return the elements in document order
+     */
+    synchronized List<DomElement> find(final Dimension dimension, final String key) {
+        final Keys keys;
+        if (detached_) {
+            // dropped concurrently, answer from a fresh traversal
+            keys = build(dimension, true);
+        }
+        else {
+            keys = dimensions_.computeIfAbsent(dimension, d -> build(d, false));
+        }
+        final List<DomElement> found = keys.lookup(key);
+        if (dimension.attributeName_ == null || detached_ || unobserved_.isEmpty()) {
+            return found;
+        }
+
+        List<DomElement> merged = null;
+        for (final DomElement element : unobserved_) {
+            if (dimension.keysOf(element).contains(key)) {
+                if (merged == null) {
+                    merged = new ArrayList<>(found);
+                }
+                merged.add(element);
+            }
+        }
+        if (merged == null) {
+            return found;
+        }
+        merged.sort(DOCUMENT_ORDER);
+        return merged;
+    }
+
+    /**
+     * Drops the given dimension; dropping the last one detaches the index from the page.
+     *
+     * @param dimension the dimension
+     */
+    void drop(final Dimension dimension) {
+        synchronized (LOCK) {
+            synchronized (this) {
+                if (dimensions_.remove(dimension) == null || !dimensions_.isEmpty()) {
+                    return;
+                }
+                detached_ = true;
+                unobserved_.clear();
+            }
+            page_.removeDomChangeListener(this);
+            page_.removeHtmlAttributeChangeListener(this);
+            if (page_.getUserData(USER_DATA_KEY) == this) {
+                page_.setUserData(USER_DATA_KEY, null, null);
+            }
+        }
+    }
+
+    /**
+     * @param dimension the dimension
+     * @return the number of distinct keys of the dimension, 0 if it isn't built
+     */
+    synchronized int getKeyCount(final Dimension dimension) {
+        final Keys keys = dimensions_.get(dimension);
+        return keys == null ? 0 : keys.entries_.size();
+    }
+
+    /**
+     * @param dimension the dimension
+     * @return the number of element references held for the dimension, 0 if it isn't built
+     */
+    synchronized long getEntryCount(final Dimension dimension) {
+        final Keys keys = dimensions_.get(dimension);
+        return keys == null ? 0 : keys.size_;
+    }
+
+    /**
+     * @param dimension the dimension
+     * @return the number of lookups of the dimension answered without sorting
+     */
+    synchronized long getHits(final Dimension dimension) {
+        final Keys keys = dimensions_.get(dimension);
+        return keys == null ? 0 : keys.hits_;
+    }
+
+    /**
+     * @param dimension the dimension
+     * @return the number of lookups of the dimension that had to sort the elements of a changed key
+     */
+    synchronized long getMisses(final Dimension dimension) {
+        final Keys keys = dimensions_.get(dimension);
+        return keys == null ? 0 : keys.misses_;
+    }
+
+    /**
+     * @return the number of elements checked on every lookup
+     */
+    synchronized int getUnobservedCount() {
+        return unobserved_.size();
+    }
+
+    /**
+     * @return the number of DOM changes applied to the dimensions
+     */
+    synchronized long getUpdates() {
+        return updates_;
+    }
+
+    private Keys build(final Dimension dimension, final boolean all) {
+        final Keys keys = new Keys();
+        for (final DomElement element : page_.getDomElementDescendants()) {
+            if (all || dimension.isObserved(element)) {
+                keys.addAll(dimension.keysOf(element), element);
+            }
+        }
+        return keys;
+    }
+
+    private void add(final DomElement element) {
+        if (!(element instanceof HtmlElement)) {
+            unobserved_.add(element);
+        }
+        for (final Map.Entry<Dimension, Keys> entry : dimensions_.entrySet()) {
+            if (entry.getKey().isObserved(element)) {
+                entry.getValue().addAll(entry.getKey().keysOf(element), element);
+            }
+        }
+    }
+
+    private void remove(final DomElement element) {
+        if (!(element instanceof HtmlElement)) {
+            unobserved_.remove(element);
+        }
+        for (final Map.Entry<Dimension, Keys> entry : dimensions_.entrySet()) {
+            if (entry.getKey().isObserved(element)) {
+                entry.getValue().removeAll(entry.getKey().keysOf(element), element);
+            }
+        }
+    }
+
+    private static Set<DomElement> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static List<String> splitClassNames(final String classAttribute) {
+        final List<String> classNames = new ArrayList<>();
+        final int length = classAttribute.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            final boolean separator = i == length || Character.isWhitespace(classAttribute.charAt(i));
+            if (separator && start != -1) {
+                classNames.add(classAttribute.substring(start, i));
+                start = -1;
+            }
+            else if (!separator && start == -1) {
+                start = i;
+            }
+        }
+        return classNames;
+    }
+
+    @Override
+    public synchronized void nodeAdded(final DomChangeEvent event) {
+        final DomNode node = event.getChangedNode();
+        if (detached_ || !node.isAttachedToPage()) {
+            return;
+        }
+        if (!dimensions_.isEmpty()) {
+            updates_++;
+        }
+        if (node instanceof DomElement) {
+            add((DomElement) node);
+        }
+        for (final DomElement element : node.getDomElementDescendants()) {
+            add(element);
+        }
+    }
+
+    @Override
+    public synchronized void nodeDeleted(final DomChangeEvent event) {
+        if (detached_) {
+            return;
+        }
+        final DomNode node = event.getChangedNode();
+        if (!dimensions_.isEmpty()) {
+            updates_++;
+        }
+        if (node instanceof DomElement) {
+            remove((DomElement) node);
+        }
+        for (final DomElement element : node.getDomElementDescendants()) {
+            remove(element);
+        }
+    }
+
+    @Override
+    public synchronized void attributeAdded(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event, null, event.getValue());
+    }
+
+    @Override
+    public synchronized void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event, event.getValue(), null);
+    }
+
+    @Override
+    public synchronized void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        // the event reports the old value
+        attributeChanged(event, event.getValue(), event.getHtmlElement().getAttribute(event.getName()));
+    }
+
+    private void attributeChanged(final HtmlAttributeChangeEvent event, final String oldValue,
+            final String newValue) {
+        final HtmlElement element = event.getHtmlElement();
+        if (detached_ || !element.isAttachedToPage()) {
+            return;
+        }
+        boolean updated = false;
+        for (final Map.Entry<Dimension, Keys> entry : dimensions_.entrySet()) {
+            final Dimension dimension = entry.getKey();
+            if (event.getName().equals(dimension.attributeName_)) {
+                updated = true;
+                if (oldValue != null) {
+                    entry.getValue().removeAll(dimension.keysOfValue(oldValue), element);
+                }
+                if (newValue != null) {
+                    entry.getValue().addAll(dimension.keysOfValue(newValue), element);
+                }
+            }
+        }
+        if (updated) {
+            updates_++;
+        }
+    }
+
+    /**
+     * A kind of key derived from an element: its lower case tag name, the whitespace
+     * separated names of its class attribute or the value of a single attribute.
+     */
+    static final class Dimension {
+        // null for the tag name
+        private final String attributeName_;
+        private final boolean classNames_;
+
+        private Dimension(final String attributeName, final boolean classNames) {
+            attributeName_ = attributeName;
+            classNames_ = classNames;
+        }
+
+        /**
+         * @param attributeName the (lower case) attribute name
+         * @return the dimension of the values of the given attribute
+         */
+        static Dimension attribute(final String attributeName) {
+            return new Dimension(attributeName, false);
+        }
+
+        // tag names don't change, attributes are observed for html elements only
+        boolean isObserved(final DomElement element) {
+            return attributeName_ == null || element instanceof HtmlElement;
+        }
+
+        List<String> keysOf(final DomElement element) {
+            if (attributeName_ == null) {
+                return Collections.singletonList(element.getLocalName().toLowerCase(Locale.ROOT));
+            }
+            if (!element.hasAttribute(attributeName_)) {
+                return Collections.emptyList();
+            }
+            return keysOfValue(element.getAttribute(attributeName_));
+        }
+
+        List<String> keysOfValue(final String value) {
+            return classNames_ ? splitClassNames(value) : Collections.singletonList(value);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Dimension)) {
+                return false;
+            }
+            final Dimension other = (Dimension) obj;
+            return Objects.equals(attributeName_, other.attributeName_) && classNames_ == other.classNames_;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(attributeName_, classNames_);
+        }
+    }
+
+    /**
+     * The keys of a single dimension.
+     */
+    private static final class Keys {
+        private final Map<String, Entry> entries_ = new HashMap<>();
+        private long size_;
+        private long hits_;
+        private long misses_;
+
+        List<DomElement> lookup(final String key) {
+            final Entry entry = entries_.get(key);
+            if (entry == null) {
+                hits_++;
+                return Collections.emptyList();
+            }
+            if (entry.ordered_ == null) {
+                misses_++;
+                final List<DomElement> ordered = new ArrayList<>(entry.members_);
+                ordered.sort(DOCUMENT_ORDER);
+                entry.ordered_ = Collections.unmodifiableList(ordered);
+            }
+            else {
+                hits_++;
+            }
+            return entry.ordered_;
+        }
+
+        void addAll(final List<String> keys, final DomElement element) {
+            for (final String key : keys) {
+                final Entry entry = entries_.computeIfAbsent(key, k -> new Entry());
+                if (entry.members_.add(element)) {
+                    entry.ordered_ = null;
+                    size_++;
+                }
+            }
+        }
+
+        void removeAll(final List<String> keys, final DomElement element) {
+            for (final String key : keys) {
+                final Entry entry = entries_.get(key);
+                if (entry != null && entry.members_.remove(element)) {
+                    size_--;
+                    if (entry.members_.isEmpty()) {
+                        entries_.remove(key);
+                    }
+                    else {
+                        entry.ordered_ = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The elements of a single key.
+     */
+    private static final class Entry {
+        private final Set<DomElement> members_ = newIdentitySet();
+        private List<DomElement> ordered_;
+    }
+}
@@ -0,0 +1,115 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.WebWindow;
+
+/**
+ * Lets the implicit waits of a driver block till something happened that may change
+ * the result of a locator, instead of sleeping for a fixed time.
+ * <p>
+ * A waiting thread is woken up by {@link #changed()}, e.g. for DOM mutations of an
+ * {@link #observe(SgmlPage) observed} page, new content of a window and every
+ * JavaScript job completed in an {@link #observeJobs(WebWindow) observed} window.
+ * The wait is done on a private monitor, without polling.
+ */
+final class PageChangeSignal {
+
+    private final AtomicLong changes_ = new AtomicLong();
+    private final Runnable listener_ = this::changed;
+
+    /**
+     * @return the number of changes so far; read it before evaluating the condition
+     *         and pass it to {@link #await(long, long)}
+     */
+    long getChanges() {
+        return changes_.get();
+    }
+
+    /**
+     * Signals every DOM mutation of the given page from now on; observing a page twice
+     * has no effect.
+     *
+     * @param page the page
+     */
+    void observe(final SgmlPage page) {
+        PageChangeTracker.of(page).addListener(listener_);
+    }
+
+    /**
+     * Signals every JavaScript job completed in the given window from now on; observing
+     * a window twice has no effect.
+     *
+     * @param window the window
+     */
+    void observeJobs(final WebWindow window) {
+        final JobCompletionTracker tracker = JobCompletionTracker.of(window);
+        if (tracker != null) {
+            tracker.addListener(listener_);
+        }
+    }
+
+    /**
+     * Stops signalling the JavaScript jobs of the given window.
+     *
+     * @param window the window
+     */
+    void stopObservingJobs(final WebWindow window) {
+        final JobCompletionTracker tracker = JobCompletionTracker.of(window);
+        if (tracker != null) {
+            tracker.removeListener(listener_);
+        }
+    }
+
+    /**
+     * Signals a change, waking up the waiting thread.
+     */
+    void changed() {
+        changes_.incrementAndGet();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits till something changed since the given number of changes was read or the
+     * deadline is reached.
+     *
+     * @param changes the number of changes read before evaluating the condition
+     * @param deadline the deadline in milliseconds, see {@link System#currentTimeMillis()}
+     */
+    void await(final long changes, final long deadline) {
+        try {
+            synchronized (this) {
+                while (true) {
+                    final long remaining = deadline - System.currentTimeMillis();
+                    if (changes_.get() != changes || remaining <= 0) {
+                        return;
+                    }
+                    wait(remaining);
+                }
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.CharacterDataChangeEvent;
+import org.htmlunit.html.CharacterDataChangeListener;
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+import org.htmlunit.html.HtmlAttributeChangeEvent;
+import org.htmlunit.html.HtmlAttributeChangeListener;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Counts the changes of the DOM of a single page (nodes added or removed, attributes,
+ * text content); caches derived from the DOM compare the version they were built for
+ * with the current one.
+ * <p>
+ * The tracker is attached to the page as user data, so it lives as long as the page.
+ * Listeners added to the tracker are informed after every change.
+ */
+final class PageChangeTracker implements DomChangeListener, HtmlAttributeChangeListener,
+        CharacterDataChangeListener {
+
+    private static final String USER_DATA_KEY = PageChangeTracker.class.getName();
+    // not the page, HtmlUnit holds the page's monitor while running scripts
+    private static final Object LOCK = new Object();
+
+    private volatile long version_;
+    private final Set<Runnable> listeners_ = new CopyOnWriteArraySet<>();
+
+    private PageChangeTracker() {
+    }
+
+    /**
+     * Returns the tracker of the given page, attaching a new one if required.
+     *
+     * @param page the page
+     * @return the tracker
+     */
+    static PageChangeTracker of(final SgmlPage page) {
+        synchronized (LOCK) {
+            PageChangeTracker tracker = (PageChangeTracker) page.getUserData(USER_DATA_KEY);
+            if (tracker == null) {
+                tracker = new PageChangeTracker();
+                page.addDomChangeListener(tracker);
+                page.addCharacterDataChangeListener(tracker);
+                if (page instanceof HtmlPage) {
+                    ((HtmlPage) page).addHtmlAttributeChangeListener(tracker);
+                }
+                page.setUserData(USER_DATA_KEY, tracker, null);
+            }
+            return tracker;
+        }
+    }
+
+    /**
+     * @return the current version; changes with every modification of the DOM
+     */
+    long getVersion() {
+        return version_;
+    }
+
+    /**
+     * Adds a listener called after every change; adding the same listener twice has no effect.
+     *
+     * @param listener the listener
+     */
+    void addListener(final Runnable listener) {
+        listeners_.add(listener);
+    }
+
+    private void changed() {
+        synchronized (this) {
+            version_++;
+        }
+        for (final Runnable listener : listeners_) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeAdded(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void characterDataChanged(final CharacterDataChangeEvent event) {
+        changed();
+    }
+}
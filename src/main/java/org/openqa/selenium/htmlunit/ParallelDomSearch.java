@@ -0,0 +1,185 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Searches the elements of large static pages in parallel; the sibling subtrees of the
+ * page are matched by fork/join tasks and the results are concatenated in document order.
+ * <p>
+ * The DOM is not thread safe, therefore this is only done for pages nobody modifies
+ * during the search: JavaScript is disabled, no job is pending, the page is completely
+ * loaded and the driver commands are serialized anyway. If the page was changed
+ * nevertheless, the search is repeated sequentially.
+ */
+final class ParallelDomSearch {
+
+    /** Pages with fewer elements are searched sequentially. */
+    static final int MIN_ELEMENTS = 10_000;
+
+    // siblings handled by a single task
+    private static final int SEQUENTIAL_SIBLINGS = 32;
+    // below this depth the subtrees are walked sequentially
+    private static final int MAX_SPLIT_DEPTH = 8;
+
+    private static final String USER_DATA_KEY = ParallelDomSearch.class.getName();
+
+    private ParallelDomSearch() {
+    }
+
+    /**
+     * Checks if the given page of the given driver may be searched in parallel.
+     *
+     * @param driver the driver
+     * @param page the page to search
+     * @return whether {@link #findAll(DomNode, Predicate)} can be used
+     */
+    static boolean isApplicable(final HtmlUnitDriver driver, final SgmlPage page) {
+        if (!driver.isParallelFind() || driver.isJavascriptEnabled() || !(page instanceof HtmlPage)
+                || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return false;
+        }
+        if (!DomNode.READY_STATE_COMPLETE.equals(((HtmlPage) page).getReadyState())
+                || page.getEnclosingWindow().getJobManager().getJobCount() > 0) {
+            return false;
+        }
+        return countElements(page) >= MIN_ELEMENTS;
+    }
+
+    /**
+     * Finds the descendants of the given root matching the given matcher.
+     *
+     * @param root the root of the search, not included in the result
+     * @param matcher the matcher; called concurrently, therefore it must not modify anything
+     * @return the matching elements in document order
+     */
+    static List<DomElement> findAll(final DomNode root, final Predicate<DomElement> matcher) {
+        final PageChangeTracker tracker = PageChangeTracker.of(root.getPage());
+        final long version = tracker.getVersion();
+
+        final List<DomElement> found =
+                ForkJoinPool.commonPool().invoke(new SearchTask(childElements(root), 0, -1, matcher, 0));
+        if (tracker.getVersion() == version) {
+            return found;
+        }
+
+        final List<DomElement> sequential = new ArrayList<>();
+        for (final DomElement element : root.getDomElementDescendants()) {
+            if (matcher.test(element)) {
+                sequential.add(element);
+            }
+        }
+        return sequential;
+    }
+
+    /**
+     * Counts the elements of the given page; the count is cached until the page is changed.
+     */
+    private static int countElements(final SgmlPage page) {
+        final long version = PageChangeTracker.of(page).getVersion();
+        final long[] cached = (long[]) page.getUserData(USER_DATA_KEY);
+        if (cached != null && cached[0] == version) {
+            return (int) cached[1];
+        }
+
+        int count = 0;
+        for (final DomElement element : page.getDomElementDescendants()) {
+            count++;
+        }
+        page.setUserData(USER_DATA_KEY, new long[] {version, count}, null);
+        return count;
+    }
+
+    private static DomElement[] childElements(final DomNode node) {
+        final List<DomElement> children = new ArrayList<>();
+        for (DomNode child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof DomElement) {
+                children.add((DomElement) child);
+            }
+        }
+        return children.toArray(new DomElement[0]);
+    }
+
+    /**
+     * Searches a range of sibling subtrees.
+     */
+    private static final class SearchTask extends RecursiveTask<List<DomElement>> {
+        private final DomElement[] siblings_;
+        private final int from_;
+        private final int to_;
+        private final Predicate<DomElement> matcher_;
+        private final int depth_;
+
+        /**
+         * @param to the end of the range (exclusive) or -1 for all siblings
+         */
+        SearchTask(final DomElement[] siblings, final int from, final int to,
+                final Predicate<DomElement> matcher, final int depth) {
+            siblings_ = siblings;
+            from_ = from;
+            to_ = to == -1 ? siblings.length : to;
+            matcher_ = matcher;
+            depth_ = depth;
+        }
+
+        @Override
+        protected List<DomElement> compute() {
+            if (to_ - from_ > SEQUENTIAL_SIBLINGS) {
+                final int middle = (from_ + to_) >>> 1;
+                final SearchTask head = new SearchTask(siblings_, from_, middle, matcher_, depth_);
+                final SearchTask tail = new SearchTask(siblings_, middle, to_, matcher_, depth_);
+                head.fork();
+                final List<DomElement> tailFound = tail.compute();
+                final List<DomElement> found = head.join();
+                found.addAll(tailFound);
+                return found;
+            }
+
+            final List<DomElement> found = new ArrayList<>();
+            for (int i = from_; i < to_; i++) {
+                final DomElement sibling = siblings_[i];
+                if (matcher_.test(sibling)) {
+                    found.add(sibling);
+                }
+
+                final DomElement[] children = depth_ < MAX_SPLIT_DEPTH ? childElements(sibling) : null;
+                if (children != null && children.length > 1) {
+                    found.addAll(new SearchTask(children, 0, -1, matcher_, depth_ + 1).compute());
+                }
+                else {
+                    for (final DomElement element : sibling.getDomElementDescendants()) {
+                        if (matcher_.test(element)) {
+                            found.add(element);
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.Html;
+import org.htmlunit.html.HtmlPage;
+import org.w3c.dom.Node;
+
+/**
+ * A precompiled XPath expression of a simple shape, evaluated by walking the DOM
+ * directly instead of using the XPath engine.
+ * <p>
+ * Supported are location paths made of child ({@code /}) and descendant ({@code //})
+ * steps with a lower case element name or {@code *}, each step optionally filtered by
+ * attribute tests ({@code [@name]}, {@code [@name='value']}, combined with {@code and}
+ * or by several brackets); the path may be relative ({@code ./}, {@code .//}) and may
+ * be wrapped into a positional filter {@code (path)[n]}. Examples:
+ * <ul>
+ *   <li>{@code //input[@name='q']}</li>
+ *   <li>{@code //*[@id='menu']//a}</li>
+ *   <li>{@code (//table/tbody/tr)[3]}</li>
+ * </ul>
+ * Everything else is left to the XPath engine. A descendant step testing the id
+ * attribute uses the id map of the page.
+ */
+final class SimpleXPath {
+
+    private final boolean absolute_;
+    private final Step[] steps_;
+    private final int position_;
+
+    private SimpleXPath(final boolean absolute, final List<Step> steps, final int position) {
+        absolute_ = absolute;
+        steps_ = steps.toArray(new Step[0]);
+        position_ = position;
+    }
+
+    /**
+     * Compiles the given expression.
+     *
+     * @param expression the XPath expression
+     * @return the compiled expression or {@code null} if the expression is not of a supported shape
+     */
+    static SimpleXPath compile(final String expression) {
+        String path = expression.trim();
+        int position = 0;
+        if (path.startsWith("(")) {
+            final int close = path.lastIndexOf(")[");
+            if (close == -1 || !path.endsWith("]")) {
+                return null;
+            }
+            final String number = path.substring(close + 2, path.length() - 1).trim();
+            if (number.isEmpty() || number.length() > 9 || !isDigits(number)) {
+                return null;
+            }
+            position = Integer.parseInt(number);
+            if (position < 1) {
+                return null;
+            }
+            path = path.substring(1, close).trim();
+        }
+
+        boolean absolute = true;
+        if (path.startsWith(".")) {
+            absolute = false;
+            path = path.substring(1);
+        }
+        if (!path.startsWith("/")) {
+            return null;
+        }
+
+        final List<Step> steps = new ArrayList<>();
+        final Parser parser = new Parser(path);
+        while (!parser.atEnd()) {
+            final Step step = parser.parseStep();
+            if (step == null) {
+                return null;
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty()) {
+            return null;
+        }
+        return new SimpleXPath(absolute, steps, position);
+    }
+
+    /**
+     * Checks if the expression can be evaluated for the given page; XML and XHTML pages
+     * have case sensitive names and namespaces, that are left to the XPath engine.
+     *
+     * @param page the page
+     * @return whether {@link #evaluate(DomNode, HtmlUnitElementIndex)} gives the result of the XPath engine
+     */
+    static boolean isApplicable(final SgmlPage page) {
+        return page instanceof HtmlPage && !page.hasCaseSensitiveTagNames();
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param contextNode the context node
+     * @param elementIndex the element index to use for tag name lookups, may be {@code null}
+     * @return the elements found, in document order
+     */
+    List<DomElement> evaluate(final DomNode contextNode, final HtmlUnitElementIndex elementIndex) {
+        final DomNode root = absolute_ ? contextNode.getPage() : contextNode;
+
+        List<? extends DomNode> contexts = Collections.singletonList(root);
+        List<DomElement> found = Collections.emptyList();
+        for (int i = 0; i < steps_.length; i++) {
+            found = steps_[i].evaluate(contexts, i == 0 ? elementIndex : null);
+            if (found.isEmpty()) {
+                break;
+            }
+            contexts = found;
+        }
+
+        if (position_ == 0) {
+            return found;
+        }
+        if (position_ > found.size()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(found.get(position_ - 1));
+    }
+
+    /**
+     * Returns a matcher for the elements selected by this expression if it consists of a
+     * single absolute descendant step like {@code //input[@type='text']}, that selects all
+     * matching descendants of the page. Steps on the id attribute are not converted, the
+     * id map of the page answers them faster.
+     *
+     * @return the matcher or {@code null}
+     */
+    Predicate<DomElement> toMatcher() {
+        if (!absolute_ || position_ != 0 || steps_.length != 1) {
+            return null;
+        }
+        final Step step = steps_[0];
+        if (!step.descendant_ || step.getId() != null) {
+            return null;
+        }
+        return step::matches;
+    }
+
+    private static boolean isDigits(final String string) {
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameStart(final char c) {
+        return (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    private static boolean isNamePart(final char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    /**
+     * A single location step.
+     */
+    private static final class Step {
+        private final boolean descendant_;
+        private final String name_;
+        private final List<String> attributeNames_ = new ArrayList<>();
+        // null for an existence test
+        private final List<String> attributeValues_ = new ArrayList<>();
+
+        Step(final boolean descendant, final String name) {
+            descendant_ = descendant;
+            name_ = name;
+        }
+
+        List<DomElement> evaluate(final List<? extends DomNode> contexts, final HtmlUnitElementIndex elementIndex) {
+            if (descendant_) {
+                final List<DomElement> viaMap = evaluateWithMaps(contexts, elementIndex);
+                if (viaMap != null) {
+                    return viaMap;
+                }
+            }
+
+            final List<DomElement> found = new ArrayList<>();
+            DomNode lastRoot = null;
+            boolean nested = false;
+            for (final DomNode context : contexts) {
+                if (lastRoot != null && lastRoot.isAncestorOf(context)) {
+                    if (descendant_) {
+                        // already covered by the descendants of the last root
+                        continue;
+                    }
+                    nested = true;
+                }
+                else {
+                    lastRoot = context;
+                }
+
+                if (descendant_) {
+                    for (final DomElement element : context.getDomElementDescendants()) {
+                        if (matches(element)) {
+                            found.add(element);
+                        }
+                    }
+                }
+                else {
+                    for (DomNode child = context.getFirstChild(); child != null; child = child.getNextSibling()) {
+                        if (child instanceof DomElement && matches((DomElement) child)) {
+                            found.add((DomElement) child);
+                        }
+                    }
+                }
+            }
+
+            if (nested) {
+                // the children of nested contexts are interleaved
+                found.sort((a, b) -> (a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING) != 0 ? -1 : 1);
+            }
+            return found;
+        }
+
+        /**
+         * Answers a descendant step from the id map of the page or from the element index.
+         *
+         * @return the elements found or {@code null} if not possible
+         */
+        private List<DomElement> evaluateWithMaps(final List<? extends DomNode> contexts,
+                final HtmlUnitElementIndex elementIndex) {
+            if (contexts.size() != 1) {
+                return null;
+            }
+            final DomNode context = contexts.get(0);
+            final SgmlPage page = context.getPage();
+            if (!(page instanceof HtmlPage) || (context != page && !context.isAttachedToPage())) {
+                return null;
+            }
+
+            final List<DomElement> candidates;
+            final String id = getId();
+            if (id != null) {
+                candidates = ((HtmlPage) page).getElementsById(id);
+            }
+            else if (elementIndex != null && name_ != null && context == page) {
+                candidates = elementIndex.findByTagName(page, null, name_);
+                if (candidates == null) {
+                    return null;
+                }
+            }
+            else {
+                return null;
+            }
+
+            final List<DomElement> found = new ArrayList<>(candidates.size());
+            for (final DomElement candidate : candidates) {
+                if (matches(candidate)
+                        && (context == page || (candidate != context && context.isAncestorOf(candidate)))) {
+                    found.add(candidate);
+                }
+            }
+            return found;
+        }
+
+        /**
+         * @return the id tested by this step or {@code null}
+         */
+        String getId() {
+            final int index = attributeNames_.indexOf("id");
+            if (index == -1) {
+                return null;
+            }
+            final String id = attributeValues_.get(index);
+            return id == null || id.isEmpty() ? null : id;
+        }
+
+        private boolean matches(final DomElement element) {
+            if (name_ != null) {
+                final String namespace = element.getNamespaceURI();
+                if (!name_.equalsIgnoreCase(element.getLocalName())
+                        || (namespace != null && !Html.XHTML_NAMESPACE.equals(namespace))) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < attributeNames_.size(); i++) {
+                final String name = attributeNames_.get(i);
+                if (!element.hasAttribute(name)) {
+                    return false;
+                }
+                final String value = attributeValues_.get(i);
+                if (value != null && !value.equals(element.getAttribute(name))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parses the steps of a location path.
+     */
+    private static final class Parser {
+        private final String path_;
+        private int pos_;
+
+        Parser(final String path) {
+            path_ = path;
+        }
+
+        boolean atEnd() {
+            return pos_ >= path_.length();
+        }
+
+        Step parseStep() {
+            if (!consume('/')) {
+                return null;
+            }
+            final boolean descendant = consume('/');
+
+            final String name;
+            if (consume('*')) {
+                name = null;
+            }
+            else {
+                name = parseName();
+                if (name == null) {
+                    return null;
+                }
+            }
+
+            final Step step = new Step(descendant, name);
+            while (consume('[')) {
+                do {
+                    skipWhitespace();
+                    if (!parseAttributeTest(step)) {
+                        return null;
+                    }
+                    skipWhitespace();
+                }
+                while (consumeKeyword("and"));
+                if (!consume(']')) {
+                    return null;
+                }
+            }
+            return step;
+        }
+
+        private boolean parseAttributeTest(final Step step) {
+            if (!consume('@')) {
+                return false;
+            }
+            final String name = parseName();
+            if (name == null) {
+                return false;
+            }
+            skipWhitespace();
+
+            String value = null;
+            if (consume('=')) {
+                skipWhitespace();
+                value = parseLiteral();
+                if (value == null) {
+                    return false;
+                }
+            }
+            step.attributeNames_.add(name);
+            step.attributeValues_.add(value);
+            return true;
+        }
+
+        private String parseName() {
+            final int start = pos_;
+            if (atEnd() || !isNameStart(path_.charAt(pos_))) {
+                return null;
+            }
+            while (!atEnd() && isNamePart(path_.charAt(pos_))) {
+                pos_++;
+            }
+            // prefixes, axes and functions are not supported
+            if (!atEnd() && (path_.charAt(pos_) == ':' || path_.charAt(pos_) == '(')) {
+                return null;
+            }
+            return path_.substring(start, pos_);
+        }
+
+        private String parseLiteral() {
+            if (atEnd()) {
+                return null;
+            }
+            final char quote = path_.charAt(pos_);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            final int end = path_.indexOf(quote, pos_ + 1);
+            if (end == -1) {
+                return null;
+            }
+            final String literal = path_.substring(pos_ + 1, end);
+            pos_ = end + 1;
+            return literal;
+        }
+
+        private boolean consumeKeyword(final String keyword) {
+            if (path_.startsWith(keyword, pos_)) {
+                final int end = pos_ + keyword.length();
+                if (end < path_.length() && Character.isWhitespace(path_.charAt(end))) {
+                    pos_ = end;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean consume(final char c) {
+            if (!atEnd() && path_.charAt(pos_) == c) {
+                pos_++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(path_.charAt(pos_))) {
+                pos_++;
+            }
+        }
+    }
+}
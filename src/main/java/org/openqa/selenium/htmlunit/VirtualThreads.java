@@ -0,0 +1,77 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without depending on a Java 21 runtime.
+ * <p>
+ * The factory method is looked up reflectively once; on older runtimes
+ * {@link #isSupported()} returns {@code false}.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle NEW_EXECUTOR = lookupExecutorFactory();
+
+    private VirtualThreads() {
+    }
+
+    private static MethodHandle lookupExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        }
+        catch (final NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the runtime supports virtual threads
+     */
+    static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task; falls back
+     * to a cached thread pool if the runtime does not support virtual threads.
+     *
+     * @return the executor
+     */
+    static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            return Executors.newCachedThreadPool();
+        }
+
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invokeExact();
+        }
+        catch (final RuntimeException | Error e) {
+            throw e;
+        }
+        catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+/**
+ * Tests for {@link HtmlUnitDriver#await(java.util.function.Function, Duration)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverAwaitTest extends WebDriverTestCase {
+
+    private static final String TIMER_HTML = "<html><head><title>start</title><script>\n"
+            + "  function later() {\n"
+            + "    setTimeout(function() {\n"
+            + "      document.title = 'done';\n"
+            + "      document.getElementById('hidden').style.display = 'block';\n"
+            + "    }, 100);\n"
+            + "  }\n"
+            + "</script></head>\n"
+            + "<body onload='later()'>\n"
+            + "  <p id='hidden' style='display: none'>hidden</p>\n"
+            + "</body></html>";
+
+    @Test
+    public void expectedConditions() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(TIMER_HTML));
+            assertEquals("start", driver.getTitle());
+
+            assertTrue(driver.await(ExpectedConditions.titleIs("done"), Duration.ofSeconds(10)));
+            final WebElement hidden = driver.await(
+                    ExpectedConditions.visibilityOfElementLocated(By.id("hidden")), Duration.ofSeconds(10));
+            assertEquals("hidden", hidden.getText());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void evaluatedOnChangesOnly() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><head><title>static</title></head><body></body></html>"));
+
+            final AtomicInteger calls = new AtomicInteger();
+            final long start = System.currentTimeMillis();
+            try {
+                driver.await(d -> {
+                    calls.incrementAndGet();
+                    return false;
+                }, Duration.ofMillis(300));
+                fail("TimeoutException expected");
+            }
+            catch (final TimeoutException e) {
+                // expected
+            }
+            assertTrue(System.currentTimeMillis() - start >= 300);
+            assertEquals(1, calls.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void implicitWaitSuspended() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><head><title>static</title></head><body></body></html>"));
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(20));
+
+            final long start = System.currentTimeMillis();
+            try {
+                driver.await(ExpectedConditions.presenceOfElementLocated(By.id("missing")), Duration.ofMillis(200));
+                fail("TimeoutException expected");
+            }
+            catch (final TimeoutException e) {
+                assertTrue(e.getCause() instanceof NoSuchElementException);
+            }
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void jobCompletionWithoutDomChange() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><head><script>\n"
+                    + "  setTimeout(function() { window.done = true; }, 200);\n"
+                    + "</script></head><body></body></html>"));
+
+            final long start = System.currentTimeMillis();
+            assertEquals(Boolean.TRUE, driver.await(
+                    d -> ((HtmlUnitDriver) d).executeScript("return window.done === true"), Duration.ofSeconds(20)));
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void chainedJobsWithoutDomChange() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            // every job schedules the next one, the number of pending jobs stays the same
+            driver.get(loadPage("<html><head><script>\n"
+                    + "  window.steps = 0;\n"
+                    + "  function step() {\n"
+                    + "    window.steps++;\n"
+                    + "    if (window.steps < 5) {\n"
+                    + "      setTimeout(step, 20);\n"
+                    + "    }\n"
+                    + "  }\n"
+                    + "  setTimeout(step, 20);\n"
+                    + "</script></head><body></body></html>"));
+
+            final long start = System.currentTimeMillis();
+            assertEquals(Boolean.TRUE, driver.await(
+                    d -> ((HtmlUnitDriver) d).executeScript("return window.steps >= 5"), Duration.ofSeconds(3)));
+            assertTrue(System.currentTimeMillis() - start < 1_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void intervalWithoutDomChange() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><head><script>\n"
+                    + "  window.ticks = 0;\n"
+                    + "  setInterval(function() { window.ticks++; }, 20);\n"
+                    + "</script></head><body></body></html>"));
+
+            final long start = System.currentTimeMillis();
+            assertEquals(Boolean.TRUE, driver.await(
+                    d -> ((HtmlUnitDriver) d).executeScript("return window.ticks >= 5"), Duration.ofSeconds(3)));
+            assertTrue(System.currentTimeMillis() - start < 1_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private String loadPage(final String html) throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        startWebServer(getMockWebConnection(), null);
+        return URL_FIRST.toExternalForm();
+    }
+}
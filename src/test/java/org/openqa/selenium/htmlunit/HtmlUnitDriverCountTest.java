@@ -0,0 +1,175 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.htmlunit.html.DomElement;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.support.pagefactory.ByChained;
+
+/**
+ * Tests for {@link HtmlUnitDriver#count(By)} and {@link HtmlUnitDriver#exists(By)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverCountTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html><head></head><body>\n"
+            + "  <div id='list'>\n"
+            + "    <p id='p1' name='item' class='row'>one</p>\n"
+            + "    <p id='p2' name='item' class='row odd'>two</p>\n"
+            + "    <p id='p3' name='item' class='row'>three</p>\n"
+            + "    <a id='a1' href='#'>link one</a>\n"
+            + "  </div>\n"
+            + "  <a id='a2' href='#'>link two</a>\n"
+            + "  <span class='row'>x</span>\n"
+            + "</body></html>";
+
+    private static final By[] LOCATORS = {
+        By.id("p2"), By.id("missing"),
+        By.name("item"), By.name("missing"),
+        By.tagName("p"), By.tagName("A"), By.tagName("*"), By.tagName("table"),
+        By.className("row"), By.className("odd"), By.className("missing"),
+        By.cssSelector("p.row"), By.cssSelector("div > a"), By.cssSelector("table"),
+        By.xpath("//p[@class='row']"), By.xpath("//table"),
+        By.xpath("//p[position() > 1]"), By.xpath("//a[contains(text(), 'missing')]"),
+        By.linkText("link one"), By.linkText("missing"),
+        By.partialLinkText("link"), By.partialLinkText("missing"),
+        new ByChained(By.id("list"), By.tagName("p"))
+    };
+
+    @Test
+    public void countAndExists() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlUnitWebElement list = (HtmlUnitWebElement) driver.findElement(By.id("list"));
+
+        for (final By by : LOCATORS) {
+            final int expected = driver.findElements(by).size();
+            assertEquals(by.toString(), expected, driver.count(by));
+            assertEquals(by.toString(), expected > 0, driver.exists(by));
+
+            if (!(by instanceof ByChained)) {
+                final int expectedScoped = list.findElements(by).size();
+                assertEquals(by.toString(), expectedScoped, list.count(by));
+                assertEquals(by.toString(), expectedScoped > 0, list.exists(by));
+            }
+        }
+    }
+
+    @Test
+    public void countAndExistsIndexed() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlUnitWebElement list = (HtmlUnitWebElement) driver.findElement(By.id("list"));
+        driver.getElementIndex().setEnabled(true);
+        try {
+            assertEquals(4, driver.count(By.className("row")));
+            assertEquals(3, list.count(By.className("row")));
+            assertTrue(list.exists(By.tagName("a")));
+            assertFalse(list.exists(By.tagName("span")));
+            assertTrue(driver.exists(By.tagName("span")));
+        }
+        finally {
+            driver.getElementIndex().setEnabled(false);
+        }
+    }
+
+    @Test
+    public void noWebElementsCreated() throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, HTML);
+        startWebServer(getMockWebConnection(), null);
+
+        final AtomicInteger wrapped = new AtomicInteger();
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true) {
+            @Override
+            protected HtmlUnitWebElement toWebElement(final DomElement element) {
+                wrapped.incrementAndGet();
+                return super.toWebElement(element);
+            }
+        };
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+            for (final By by : LOCATORS) {
+                if (!(by instanceof ByChained)) {
+                    driver.count(by);
+                    driver.exists(by);
+                }
+            }
+            assertEquals(0, wrapped.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void unhandledAlert() throws Exception {
+        final String html = "<html><body>\n"
+                + "  <p id='p1'>one</p>\n"
+                + "  <script>alert('hello');</script>\n"
+                + "</body></html>";
+
+        HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(html);
+        try {
+            driver.count(By.tagName("p"));
+            fail("UnhandledAlertException expected");
+        }
+        catch (final UnhandledAlertException e) {
+            assertEquals("hello", e.getAlertText());
+        }
+        assertEquals(1, driver.count(By.tagName("p")));
+
+        driver = (HtmlUnitDriver) loadPage2(html);
+        try {
+            driver.exists(By.tagName("p"));
+            fail("UnhandledAlertException expected");
+        }
+        catch (final UnhandledAlertException e) {
+            assertEquals("hello", e.getAlertText());
+        }
+        assertTrue(driver.exists(By.tagName("p")));
+    }
+
+    @Test
+    public void existsXPathSelectingText() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlUnitWebElement list = (HtmlUnitWebElement) driver.findElement(By.id("list"));
+        try {
+            driver.exists(By.xpath("//p[position() > 1]/text()"));
+            fail("InvalidSelectorException expected");
+        }
+        catch (final InvalidSelectorException e) {
+            // expected
+        }
+        try {
+            list.exists(By.xpath(".//p[position() > 1]/text()"));
+            fail("InvalidSelectorException expected");
+        }
+        catch (final InvalidSelectorException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link HtmlUnitDriver#findAll(Map)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverFindAllTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html><head></head><body>\n"
+            + "  <form id='form'>\n"
+            + "    <input id='user' name='user' class='field'>\n"
+            + "    <input id='password' name='password' type='password' class='field secret'>\n"
+            + "    <button id='submit' class='primary'>Login</button>\n"
+            + "  </form>\n"
+            + "  <a id='help' href='#'>Help</a>\n"
+            + "</body></html>";
+
+    @Test
+    public void findAll() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+
+        final Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("user", By.id("user"));
+        locators.put("password", By.name("password"));
+        locators.put("inputs", By.tagName("INPUT"));
+        locators.put("fields", By.className("field"));
+        locators.put("submit", By.cssSelector("form > button.primary"));
+        locators.put("help", By.linkText("Help"));
+        locators.put("last", By.xpath("//input[last()]"));
+        locators.put("missing", By.cssSelector("#missing"));
+
+        final Map<String, List<WebElement>> found = driver.findAll(locators);
+        assertEquals(new ArrayList<>(locators.keySet()), new ArrayList<>(found.keySet()));
+        assertEquals("user", ids(found.get("user")));
+        assertEquals("password", ids(found.get("password")));
+        assertEquals("user,password", ids(found.get("inputs")));
+        assertEquals("user,password", ids(found.get("fields")));
+        assertEquals("submit", ids(found.get("submit")));
+        assertEquals("help", ids(found.get("help")));
+        assertEquals("password", ids(found.get("last")));
+        assertEquals("", ids(found.get("missing")));
+
+        for (final Map.Entry<String, By> entry : locators.entrySet()) {
+            assertEquals(entry.getKey(), ids(driver.findElements(entry.getValue())), ids(found.get(entry.getKey())));
+        }
+    }
+
+    @Test
+    public void findAllIndexed() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        driver.getElementIndex().setEnabled(true);
+        try {
+            final Map<String, By> locators = new LinkedHashMap<>();
+            locators.put("inputs", By.tagName("input"));
+            locators.put("secret", By.className("secret"));
+
+            final Map<String, List<WebElement>> found = driver.findAll(locators);
+            assertEquals("user,password", ids(found.get("inputs")));
+            assertEquals("password", ids(found.get("secret")));
+            assertTrue(driver.getElementIndex().getStatistics().getPages() > 0);
+        }
+        finally {
+            driver.getElementIndex().setEnabled(false);
+        }
+    }
+
+    @Test(expected = InvalidSelectorException.class)
+    public void invalidLocator() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+
+        final Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("user", By.id("user"));
+        locators.put("invalid", By.cssSelector("input[[["));
+        driver.findAll(locators);
+    }
+
+    @Test
+    public void implicitWaitOnceForTheBatch() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function later() {\n"
+                + "    setTimeout(function() {\n"
+                + "      var div = document.createElement('div');\n"
+                + "      div.id = 'late';\n"
+                + "      div.className = 'late';\n"
+                + "      document.body.appendChild(div);\n"
+                + "    }, 100);\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='later()'></body></html>";
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(html);
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(1));
+        try {
+            Map<String, By> locators = new LinkedHashMap<>();
+            locators.put("late", By.className("late"));
+            locators.put("body", By.tagName("body"));
+            Map<String, List<WebElement>> found = driver.findAll(locators);
+            assertEquals("late", ids(found.get("late")));
+            assertEquals(1, found.get("body").size());
+
+            locators = new LinkedHashMap<>();
+            locators.put("missing1", By.id("missing1"));
+            locators.put("missing2", By.className("missing2"));
+            locators.put("missing3", By.cssSelector("p.missing3"));
+            final long start = System.currentTimeMillis();
+            found = driver.findAll(locators);
+            final long duration = System.currentTimeMillis() - start;
+            assertEquals(3, found.size());
+            assertTrue(found.get("missing1").isEmpty());
+            assertTrue(found.get("missing2").isEmpty());
+            assertTrue(found.get("missing3").isEmpty());
+            assertTrue("waited " + duration + "ms", duration >= 1000);
+        }
+        finally {
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.ProxyConfig;
+import org.htmlunit.WebClientOptions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.UnexpectedAlertBehaviour;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+/**
+ * Tests for {@link HtmlUnitDriver#fork(int)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverForkTest extends WebDriverTestCase {
+
+    @Test
+    public void forkCopiesSession() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  if (!document.cookie) {\n"
+                + "    document.cookie = 'session=42';\n"
+                + "    localStorage.setItem('local', 'x');\n"
+                + "    sessionStorage.setItem('session', 'y');\n"
+                + "  }\n"
+                + "  localStorage.setItem('runs', (+localStorage.getItem('runs') || 0) + 1);\n"
+                + "</script></head><body></body></html>";
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        getMockWebConnection().setResponse(URL_SECOND,
+                "<html><head><title>second</title></head><body></body></html>");
+        startWebServer(getMockWebConnection(), null);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+            driver.get(URL_SECOND.toExternalForm());
+            final int requestCount = getMockWebConnection().getRequestCount();
+
+            final List<HtmlUnitDriver> forks = driver.fork(2);
+            assertEquals(2, forks.size());
+            assertEquals(requestCount, getMockWebConnection().getRequestCount());
+
+            for (final HtmlUnitDriver fork : forks) {
+                try {
+                    assertNotSame(driver.getWebClient(), fork.getWebClient());
+                    assertEquals(URL_SECOND.toExternalForm(), fork.getCurrentUrl());
+                    assertEquals("second", fork.getTitle());
+                    assertEquals("42", fork.manage().getCookieNamed("session").getValue());
+                    assertEquals("x", fork.executeScript("return localStorage.getItem('local')"));
+                    assertEquals("y", fork.executeScript("return sessionStorage.getItem('session')"));
+                    // the pages before the current one are not loaded again
+                    assertEquals("1", fork.executeScript("return localStorage.getItem('runs')"));
+
+                    // the history starts with the current page
+                    fork.navigate().back();
+                    assertEquals("about:blank", fork.getCurrentUrl());
+                }
+                finally {
+                    fork.quit();
+                }
+            }
+
+            // the source is not affected by its forks
+            assertEquals(URL_SECOND.toExternalForm(), driver.getCurrentUrl());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void forksAreIndependent() throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, "<html><head></head><body></body></html>");
+        startWebServer(getMockWebConnection(), null);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+            final HtmlUnitDriver fork = driver.fork(1).get(0);
+            try {
+                fork.executeScript("localStorage.setItem('fork', 'only')");
+                assertNull(driver.executeScript("return localStorage.getItem('fork')"));
+            }
+            finally {
+                fork.quit();
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void forkCopiesSettings() throws Exception {
+        final DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setBrowserName(Browser.HTMLUNIT.browserName());
+        capabilities.setCapability(CapabilityType.UNHANDLED_PROMPT_BEHAVIOUR, UnexpectedAlertBehaviour.ACCEPT);
+        capabilities.setCapability(CapabilityType.ACCEPT_INSECURE_CERTS, false);
+        capabilities.setCapability(HtmlUnitDriver.DOWNLOAD_IMAGES_CAPABILITY, true);
+        capabilities.setCapability(HtmlUnitDriver.IN_MEMORY_CLIPBOARD_CAPABILITY, true);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            final MockWebConnection connection = new MockWebConnection();
+            connection.setResponse(URL_FIRST, "<html><head><title>first</title></head><body>\n"
+                    + "<button id='b' onclick='document.title = confirm(\"sure?\") ? \"accepted\" : \"dismissed\"'>"
+                + "b</button></body></html>");
+            driver.getWebClient().setWebConnection(connection);
+            driver.getWebClient().getOptions().setProxyConfig(new ProxyConfig("proxy.example", 3128, null));
+            final AtomicInteger executed = new AtomicInteger();
+            driver.setExecutor(command -> {
+                executed.incrementAndGet();
+                new Thread(command).start();
+            });
+            driver.get(URL_FIRST.toExternalForm());
+
+            final HtmlUnitDriver fork = driver.fork(1).get(0);
+            try {
+                final WebClientOptions options = fork.getWebClient().getOptions();
+                assertFalse(options.isUseInsecureSSL());
+                assertTrue(options.isDownloadImages());
+                assertEquals("proxy.example", options.getProxyConfig().getProxyHost());
+                assertSame(connection, fork.getWebClient().getWebConnection());
+                assertTrue(fork.getWebClient().getClipboardHandler() instanceof InMemoryClipboardHandler);
+                assertNotSame(driver.getWebClient().getClipboardHandler(),
+                        fork.getWebClient().getClipboardHandler());
+                assertEquals("first", fork.getTitle());
+
+                // the alert is accepted like by the source
+                final int executedBefore = executed.get();
+                fork.findElement(By.id("b")).click();
+                fork.getTitle();
+                assertTrue(fork.await(ExpectedConditions.titleIs("accepted"), Duration.ofSeconds(10)));
+                assertTrue(executed.get() > executedBefore);
+            }
+            finally {
+                fork.quit();
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forkNothing() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion());
+        try {
+            driver.fork(0);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
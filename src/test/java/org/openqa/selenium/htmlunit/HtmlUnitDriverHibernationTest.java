@@ -0,0 +1,164 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link HtmlUnitDriver#hibernate(Path)} and {@link HtmlUnitDriver#resume(Path)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverHibernationTest extends WebDriverTestCase {
+
+    @Test
+    public void hibernateAndResume() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  if (!document.cookie) {\n"
+                + "    document.cookie = 'session=42';\n"
+                + "    localStorage.setItem('local', 'x');\n"
+                + "    sessionStorage.setItem('session', 'y');\n"
+                + "  }\n"
+                + "</script></head><body></body></html>";
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        getMockWebConnection().setResponse(URL_SECOND,
+                "<html><head><title>second</title></head><body></body></html>");
+        getMockWebConnection().setResponse(URL_THIRD,
+                "<html><head><title>third</title></head><body></body></html>");
+        startWebServer(getMockWebConnection(), null);
+
+        final Path file = Files.createTempFile("htmlunit", ".session");
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        final HtmlUnitDriver resumed = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+            driver.get(URL_SECOND.toExternalForm());
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(3));
+            driver.executeScript("window.open('" + URL_THIRD + "', 'other')");
+
+            driver.hibernate(file);
+            assertEquals("about:blank", driver.getCurrentUrl());
+            assertEquals(1, driver.getWindowHandles().size());
+            assertEquals(0, driver.manage().getCookies().size());
+
+            resumed.resume(file);
+            assertEquals(URL_SECOND.toExternalForm(), resumed.getCurrentUrl());
+            assertEquals("second", resumed.getTitle());
+            assertEquals("42", resumed.manage().getCookieNamed("session").getValue());
+            assertEquals("x", resumed.executeScript("return localStorage.getItem('local')"));
+            assertEquals("y", resumed.executeScript("return sessionStorage.getItem('session')"));
+            assertEquals(Duration.ofSeconds(3), resumed.manage().timeouts().getImplicitWaitTimeout());
+
+            assertEquals(2, resumed.getWindowHandles().size());
+            final String mainWindow = resumed.getWindowHandle();
+            resumed.switchTo().window("other");
+            assertEquals("third", resumed.getTitle());
+
+            resumed.switchTo().window(mainWindow);
+            resumed.navigate().back();
+            assertEquals("about:blank", resumed.getCurrentUrl());
+        }
+        finally {
+            driver.quit();
+            resumed.quit();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void resumePostedPage() throws Exception {
+        final String html = "<html><body>\n"
+                + "<form method='post' action='" + URL_SECOND + "'>\n"
+                + "  <input name='q' value='hello'>\n"
+                + "  <input type='submit' id='submit'>\n"
+                + "</form>\n"
+                + "</body></html>";
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        getMockWebConnection().setResponse(URL_SECOND,
+                "<html><head><title>posted</title></head><body></body></html>");
+        startWebServer(getMockWebConnection(), null);
+
+        final Path file = Files.createTempFile("htmlunit", ".session");
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        final HtmlUnitDriver resumed = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+            driver.findElement(By.id("submit")).click();
+            assertEquals("posted", driver.getTitle());
+
+            driver.hibernate(file);
+            final int requests = getMockWebConnection().getRequestCount();
+
+            resumed.resume(file);
+            assertEquals("posted", resumed.getTitle());
+            assertEquals(requests + 1, getMockWebConnection().getRequestCount());
+
+            final WebRequest request = getMockWebConnection().getLastWebRequest();
+            assertEquals(URL_SECOND, request.getUrl());
+            assertEquals(HttpMethod.POST, request.getHttpMethod());
+            assertEquals("[q=hello]", request.getRequestParameters().toString());
+        }
+        finally {
+            driver.quit();
+            resumed.quit();
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = WebDriverException.class)
+    public void resumeRejectsForeignClasses() throws Exception {
+        final Path file = Files.createTempFile("htmlunit", ".session");
+        try (OutputStream out = Files.newOutputStream(file);
+                ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(new Date());
+        }
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion());
+        try {
+            driver.resume(file);
+        }
+        finally {
+            driver.quit();
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = WebDriverException.class)
+    public void resumeMissingFile() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion());
+        try {
+            driver.resume(Path.of("missing.session"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
@@ -0,0 +1,491 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Tests for the implicit wait of {@link HtmlUnitDriver}, retrying the locators
+ * when the page changed instead of polling.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverImplicitWaitTest extends WebDriverTestCase {
+
+    @Test
+    public void elementAddedByTimer() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function add() {\n"
+                + "    var div = document.createElement('div');\n"
+                + "    div.id = 'added';\n"
+                + "    document.body.appendChild(div);\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='setTimeout(add, 50)'>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.get(loadPage(html));
+
+            final long start = System.currentTimeMillis();
+            assertEquals("added", driver.findElement(By.id("added")).getAttribute("id"));
+            assertTrue(System.currentTimeMillis() - start < 5_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void scopedElementsAddedByTimer() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function mark() {\n"
+                + "    document.getElementById('p2').className = 'marked';\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='setTimeout(mark, 50)'>\n"
+                + "  <div id='ctx'><p id='p1'>one</p><p id='p2'>two</p></div>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.get(loadPage(html));
+
+            final List<WebElement> found = driver.findElement(By.id("ctx")).findElements(By.className("marked"));
+            assertEquals(1, found.size());
+            assertEquals("p2", found.get(0).getAttribute("id"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void elementShownByTimer() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function show() {\n"
+                + "    document.getElementById('button').style.display = 'block';\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='setTimeout(show, 50)'>\n"
+                + "  <button id='button' style='display: none' onclick=\"document.title = 'clicked'\">click</button>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.get(loadPage(html));
+
+            driver.findElement(By.id("button")).click();
+            assertEquals("clicked", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void elementEnabledByTimer() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function enable() {\n"
+                + "    document.getElementById('text').disabled = false;\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='setTimeout(enable, 50)'>\n"
+                + "  <input id='text' disabled>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.get(loadPage(html));
+
+            final WebElement text = driver.findElement(By.id("text"));
+            text.sendKeys("abc");
+            assertEquals("abc", text.getAttribute("value"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void elementShownBySiblingOfAncestor() throws Exception {
+        final String html = "<html><head><style>\n"
+                + "  nav .item { display: none; }\n"
+                + "  #toggle.open ~ nav .item { display: block; }\n"
+                + "</style><script>\n"
+                + "  function expand() {\n"
+                + "    document.getElementById('toggle').className = 'open';\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body>\n"
+                + "  <span id='toggle'></span>\n"
+                + "  <nav><div><button class='item' onclick=\"document.title = 'clicked'\">click</button></div></nav>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            final WebElement button = driver.findElement(By.className("item"));
+            final ActionabilityWatcher watcher =
+                    new ActionabilityWatcher(((HtmlUnitWebElement) button).getElement());
+            watcher.start();
+            try {
+                driver.executeScript("document.getElementById('toggle').setAttribute('title', 'unrelated');");
+                assertEquals(0L, watcher.getSignal().getChanges());
+
+                driver.executeScript("document.getElementById('toggle').className = 'closed';");
+                assertEquals(1L, watcher.getSignal().getChanges());
+            }
+            finally {
+                watcher.stop();
+            }
+
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.executeScript("setTimeout(expand, 50);");
+            button.click();
+            assertEquals("clicked", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void actionabilityIgnoresUnrelatedChanges() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  var count = 0;\n"
+                + "  function tick() {\n"
+                + "    document.getElementById('counter').setAttribute('title', '' + (++count));\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body>\n"
+                + "  <p id='counter'></p>\n"
+                + "  <div><button id='button' style='display: none'>click</button></div>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            final WebElement button = driver.findElement(By.id("button"));
+            final ActionabilityWatcher watcher =
+                    new ActionabilityWatcher(((HtmlUnitWebElement) button).getElement());
+            watcher.start();
+            try {
+                driver.executeScript("tick(); tick();");
+                assertEquals(0L, watcher.getSignal().getChanges());
+
+                driver.executeScript("document.getElementById('button').parentNode.className = 'shown';");
+                assertEquals(1L, watcher.getSignal().getChanges());
+
+                driver.executeScript("var p = document.createElement('p'); "
+                        + "document.getElementById('button').parentNode.appendChild(p);");
+                assertEquals(2L, watcher.getSignal().getChanges());
+                assertFalse(watcher.checkRemoved());
+
+                driver.executeScript("document.body.removeChild(document.getElementById('button').parentNode);");
+                assertTrue(watcher.checkRemoved());
+            }
+            finally {
+                watcher.stop();
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void noRetryWithoutChange() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><body><p>static</p></body></html>"));
+            driver.manage().timeouts().implicitlyWait(Duration.ofMillis(500));
+
+            final CountingBy by = new CountingBy();
+            final long start = System.currentTimeMillis();
+            assertTrue(driver.findElements(by).isEmpty());
+            assertTrue(System.currentTimeMillis() - start >= 500);
+            assertEquals(1, by.calls_.get());
+            assertEquals(0L, driver.getImplicitWaitStatistics().getFailFastCount());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void scopedMissTriesOnce() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><body><div id='ctx'><p>static</p></div></body></html>"));
+            driver.manage().timeouts().implicitlyWait(Duration.ofMillis(500));
+            final WebElement ctx = driver.findElement(By.id("ctx"));
+
+            final CountingBy by = new CountingBy();
+            final long start = System.currentTimeMillis();
+            try {
+                ctx.findElement(by);
+                fail("NoSuchElementException expected");
+            }
+            catch (final NoSuchElementException e) {
+                // expected
+            }
+            // a single wait with a single deadline
+            assertTrue(System.currentTimeMillis() - start >= 500);
+            assertEquals(1, by.calls_.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void staleScopeFailsRightAway() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><body><div id='ctx'><p>static</p></div></body></html>"));
+            final WebElement ctx = driver.findElement(By.id("ctx"));
+            driver.executeScript("document.body.removeChild(document.getElementById('ctx'));");
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(20));
+
+            final long start = System.currentTimeMillis();
+            try {
+                ctx.findElement(By.tagName("p"));
+                fail("StaleElementReferenceException expected");
+            }
+            catch (final StaleElementReferenceException e) {
+                // expected
+            }
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void invalidSelectorFailsRightAway() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body onload=\"setInterval(function() { document.title += '.'; }, 20)\">\n"
+                + "  <div id='ctx'></div>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            final WebElement ctx = driver.findElement(By.id("ctx"));
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(20));
+
+            final long start = System.currentTimeMillis();
+            final By[] invalid = {By.xpath("//div[@"), By.cssSelector("div[")};
+            for (final By by : invalid) {
+                try {
+                    driver.findElement(by);
+                    fail("InvalidSelectorException expected");
+                }
+                catch (final InvalidSelectorException e) {
+                    // expected
+                }
+                try {
+                    driver.findElements(by);
+                    fail("InvalidSelectorException expected");
+                }
+                catch (final InvalidSelectorException e) {
+                    // expected
+                }
+                try {
+                    ctx.findElements(by);
+                    fail("InvalidSelectorException expected");
+                }
+                catch (final InvalidSelectorException e) {
+                    // expected
+                }
+            }
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void conditionExceptionsAreRetried() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body onload=\"setInterval(function() { document.title += '.'; }, 20)\">\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(20));
+
+            final AtomicInteger calls = new AtomicInteger();
+            final String result = driver.implicitlyWaitFor(() -> {
+                if (calls.incrementAndGet() < 3) {
+                    throw new IllegalStateException("not yet");
+                }
+                return "done";
+            });
+            assertEquals("done", result);
+            assertEquals(3, calls.get());
+
+            driver.manage().timeouts().implicitlyWait(Duration.ofMillis(200));
+            try {
+                driver.implicitlyWaitFor(() -> {
+                    throw new IllegalStateException("never");
+                });
+                fail("IllegalStateException expected");
+            }
+            catch (final IllegalStateException e) {
+                assertEquals("never", e.getMessage());
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void shortImplicitWait() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body onload=\"setTimeout(function() { document.body.innerHTML = '<p id=\\'p\\'></p>'; }, 20)\">\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            // shorter than the former polling interval
+            driver.manage().timeouts().implicitlyWait(Duration.ofMillis(150));
+
+            assertEquals(1, driver.findElements(By.id("p")).size());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void failFastOnQuiescentPage() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage("<html><body><p id='p'>static</p></body></html>"));
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(20));
+            driver.setFailFastImplicitWait(true);
+
+            final long start = System.currentTimeMillis();
+            assertTrue(driver.findElements(By.id("error")).isEmpty());
+            try {
+                driver.findElement(By.id("p")).findElement(By.id("error"));
+                fail("NoSuchElementException expected");
+            }
+            catch (final NoSuchElementException e) {
+                // expected
+            }
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+
+            final HtmlUnitDriver.ImplicitWaitStatistics statistics = driver.getImplicitWaitStatistics();
+            assertTrue(statistics.getFailFastCount() >= 2);
+            assertTrue(statistics.getSavedTime().compareTo(Duration.ofSeconds(20)) > 0);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void failFastWaitsForPendingJobs() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  function add() {\n"
+                + "    document.body.innerHTML = '<p id=\"added\"></p>';\n"
+                + "  }\n"
+                + "</script></head>\n"
+                + "<body onload='setTimeout(add, 300)'>\n"
+                + "</body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.setFailFastImplicitWait(true);
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.get(loadPage(html));
+
+            assertEquals(1, driver.findElements(By.id("added")).size());
+            assertEquals(0L, driver.getImplicitWaitStatistics().getFailFastCount());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void failFastCapability() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.FAIL_FAST_IMPLICIT_WAIT_CAPABILITY, true);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            assertTrue(driver.isFailFastImplicitWait());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private String loadPage(final String html) throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        startWebServer(getMockWebConnection(), null);
+        return URL_FIRST.toExternalForm();
+    }
+
+    /**
+     * Never finds anything but counts the calls.
+     */
+    private static final class CountingBy extends By {
+        private final AtomicInteger calls_ = new AtomicInteger();
+
+        @Override
+        public List<WebElement> findElements(final SearchContext context) {
+            calls_.incrementAndGet();
+            return Collections.emptyList();
+        }
+    }
+}
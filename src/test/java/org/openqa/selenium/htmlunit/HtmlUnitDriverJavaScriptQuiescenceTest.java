@@ -0,0 +1,117 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Tests for {@link HtmlUnitDriver#waitForJavaScriptQuiescence(Duration)}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverJavaScriptQuiescenceTest extends WebDriverTestCase {
+
+    private static final String TIMER_HTML = "<html><head><title>start</title><script>\n"
+            + "  function later() {\n"
+            + "    setTimeout(function() { document.title = 'done'; }, 300);\n"
+            + "  }\n"
+            + "</script></head>\n"
+            + "<body onload='later()'>\n"
+            + "  <button id='button' onclick=\"document.title = 'clicked'; later()\">click</button>\n"
+            + "</body></html>";
+
+    @Test
+    public void waitReturnsWhenJobsAreDone() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(TIMER_HTML));
+            assertEquals("start", driver.getTitle());
+
+            assertTrue(driver.waitForJavaScriptQuiescence(Duration.ofSeconds(10)));
+            assertEquals("done", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void waitTimesOutForIntervals() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  setInterval(function() { document.title += 'x'; }, 10);\n"
+                + "</script></head><body></body></html>";
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.get(loadPage(html));
+            assertFalse(driver.waitForJavaScriptQuiescence(Duration.ofMillis(100)));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void timeoutAppliedToGetAndClick() throws Exception {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        try {
+            driver.setJavaScriptQuiescenceTimeout(Duration.ofSeconds(10));
+
+            driver.get(loadPage(TIMER_HTML));
+            assertEquals("done", driver.getTitle());
+
+            driver.findElement(By.id("button")).click();
+            assertEquals("done", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void timeoutCapability() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.JAVASCRIPT_QUIESCENCE_TIMEOUT_CAPABILITY, 2000);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            assertEquals(Duration.ofSeconds(2), driver.getJavaScriptQuiescenceTimeout());
+
+            driver.setJavaScriptQuiescenceTimeout(Duration.ZERO);
+            assertNull(driver.getJavaScriptQuiescenceTimeout());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private String loadPage(final String html) throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        startWebServer(getMockWebConnection(), null);
+        return URL_FIRST.toExternalForm();
+    }
+}
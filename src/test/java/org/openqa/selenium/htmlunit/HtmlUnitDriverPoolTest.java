@@ -0,0 +1,154 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link HtmlUnitDriverPool}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitDriverPoolTest extends WebDriverTestCase {
+
+    @Test
+    public void leaseReusesReleasedDriver() throws Exception {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> new HtmlUnitDriver(getBrowserVersion()), 2)) {
+            pool.prewarm(1);
+            assertEquals(1, pool.getStatistics().getIdle());
+
+            final HtmlUnitDriver driver = pool.lease();
+            assertEquals(0, pool.getStatistics().getIdle());
+            assertEquals(1, pool.getStatistics().getLeased());
+            pool.release(driver);
+
+            assertSame(driver, pool.lease());
+            assertEquals(1L, pool.getStatistics().getCreated());
+            assertEquals(2L, pool.getStatistics().getLeaseCount());
+            assertEquals(1L, pool.getStatistics().getResetCount());
+        }
+    }
+
+    @Test
+    public void releaseResetsCookiesAndStorage() throws Exception {
+        final String html = "<html><head><script>\n"
+                + "  document.cookie = 'session=42';\n"
+                + "  localStorage.setItem('local', 'x');\n"
+                + "  sessionStorage.setItem('session', 'y');\n"
+                + "</script></head><body></body></html>";
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        getMockWebConnection().setResponse(URL_SECOND, "<html><head></head><body></body></html>");
+        startWebServer(getMockWebConnection(), null);
+
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> new HtmlUnitDriver(getBrowserVersion(), true), 1)) {
+            HtmlUnitDriver driver = pool.lease();
+            driver.get(URL_FIRST.toExternalForm());
+            assertEquals(1, driver.manage().getCookies().size());
+            pool.release(driver);
+
+            driver = pool.lease();
+            assertEquals("about:blank", driver.getCurrentUrl());
+            driver.get(URL_SECOND.toExternalForm());
+            assertEquals(0, driver.manage().getCookies().size());
+            assertEquals(0L, driver.executeScript("return localStorage.length + sessionStorage.length"));
+            pool.release(driver);
+        }
+    }
+
+    @Test
+    public void releaseResetsWindowsAndTimeouts() throws Exception {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> new HtmlUnitDriver(getBrowserVersion()), 1)) {
+            HtmlUnitDriver driver = pool.lease();
+            driver.switchTo().newWindow(WindowType.TAB);
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(7));
+            assertEquals(2, driver.getWindowHandles().size());
+            pool.release(driver);
+
+            driver = pool.lease();
+            assertEquals(1, driver.getWindowHandles().size());
+            assertEquals(Duration.ZERO, driver.manage().timeouts().getImplicitWaitTimeout());
+            assertEquals("about:blank", driver.getCurrentUrl());
+        }
+    }
+
+    @Test
+    public void releaseDiscardsQuitDriver() throws Exception {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> new HtmlUnitDriver(getBrowserVersion()), 1)) {
+            final HtmlUnitDriver driver = pool.lease();
+            driver.quit();
+            pool.release(driver);
+
+            assertEquals(0, pool.getStatistics().getSize());
+            assertEquals(1L, pool.getStatistics().getDiscarded());
+            assertNotSame(driver, pool.lease());
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void leaseTimeout() throws Exception {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> new HtmlUnitDriver(getBrowserVersion()), 1)) {
+            pool.lease();
+            pool.lease(Duration.ofMillis(10));
+        }
+    }
+
+    @Test
+    public void prewarmRacingWithLeaseKeepsMaxSize() throws Exception {
+        final int maxSize = 2;
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch leaseCreating = new CountDownLatch(1);
+        final CountDownLatch leaseMayFinish = new CountDownLatch(1);
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(() -> {
+            // the first driver is created by lease(); hold it till prewarm() is done
+            if (calls.incrementAndGet() == 1) {
+                leaseCreating.countDown();
+                try {
+                    leaseMayFinish.await(10, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new HtmlUnitDriver(getBrowserVersion());
+        }, maxSize)) {
+            final AtomicReference<HtmlUnitDriver> leased = new AtomicReference<>();
+            final Thread leaser = new Thread(() -> leased.set(pool.lease()));
+            leaser.start();
+            assertTrue(leaseCreating.await(10, TimeUnit.SECONDS));
+
+            pool.prewarm(maxSize);
+            leaseMayFinish.countDown();
+            leaser.join();
+
+            assertEquals((long) maxSize, pool.getStatistics().getCreated());
+            assertEquals(maxSize, pool.getStatistics().getSize());
+            pool.release(leased.get());
+        }
+    }
+}
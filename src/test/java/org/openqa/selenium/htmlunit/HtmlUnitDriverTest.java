@@ -21,8 +21,16 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.htmlunit.BrowserVersion;
+import org.htmlunit.ClipboardHandler;
+import org.htmlunit.Page;
 import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebWindow;
 import org.junit.Test;
 import org.openqa.selenium.Platform;
 import org.openqa.selenium.Proxy;
@@ -549,4 +557,43 @@ public void resetWebClient() {
 
         webDriver.get("https://www.htmlunit.org");
     }
+
+    @Test
+    public void ctorInMemoryClipboard() {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.IN_MEMORY_CLIPBOARD_CAPABILITY, true);
+
+        final HtmlUnitDriver webDriver = new HtmlUnitDriver(capabilities);
+        final ClipboardHandler clipboard = webDriver.getWebClient().getClipboardHandler();
+        assertTrue(clipboard instanceof InMemoryClipboardHandler);
+
+        clipboard.setClipboardContent("HtmlUnit");
+        assertEquals("HtmlUnit", clipboard.getClipboardContent());
+        webDriver.quit();
+    }
+
+    @Test
+    public void ctorStartsOnBlankPage() {
+        final List<WebRequest> requests = new ArrayList<>();
+        final HtmlUnitDriver webDriver = new HtmlUnitDriver(BrowserVersion.getDefault(), true) {
+            @Override
+            protected WebClient newWebClient(final BrowserVersion version) {
+                return new WebClient(version) {
+                    @Override
+                    public <P extends Page> P getPage(final WebWindow window, final WebRequest request)
+                            throws IOException {
+                        requests.add(request);
+                        return super.getPage(window, request);
+                    }
+                };
+            }
+        };
+        assertEquals("about:blank", webDriver.getCurrentUrl());
+        assertEquals("", webDriver.getTitle());
+        assertEquals(true, webDriver.executeScript("return document.body != null"));
+        assertEquals(1, webDriver.getCurrentWindow().getWebWindow().getHistory().getLength());
+        assertEquals(0, requests.size());
+        webDriver.quit();
+    }
 }
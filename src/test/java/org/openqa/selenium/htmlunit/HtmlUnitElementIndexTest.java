@@ -0,0 +1,157 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Tests for {@link HtmlUnitElementIndex}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitElementIndexTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html><head></head><body>\n"
+            + "  <div id='d1' class='box red'>\n"
+            + "    <span id='s1' class='red'>1</span>\n"
+            + "    <p id='p1' class='box'>2</p>\n"
+            + "  </div>\n"
+            + "  <div id='d2' class='  box\tblue '>\n"
+            + "    <span id='s2'>3</span>\n"
+            + "  </div>\n"
+            + "  <svg id='svg'><rect id='r1' class='red'/></svg>\n"
+            + "</body></html>";
+
+    @Test
+    public void findByTagNameAndClassName() throws Exception {
+        final HtmlUnitDriver driver = newIndexedDriver(HTML);
+        try {
+            assertEquals("d1,d2", ids(driver.findElements(By.tagName("div"))));
+            assertEquals("d1,d2", ids(driver.findElements(By.tagName("DIV"))));
+            assertEquals("d1", driver.findElement(By.tagName("div")).getAttribute("id"));
+            assertEquals("d1,p1,d2", ids(driver.findElements(By.className("box"))));
+            assertEquals("d1,s1,r1", ids(driver.findElements(By.className("red"))));
+            assertEquals("", ids(driver.findElements(By.className("Red"))));
+            assertEquals("", ids(driver.findElements(By.tagName("table"))));
+
+            final WebElement d1 = driver.findElement(By.id("d1"));
+            assertEquals("s1", ids(d1.findElements(By.tagName("span"))));
+            assertEquals("s1", d1.findElement(By.tagName("span")).getAttribute("id"));
+            assertEquals("p1", ids(d1.findElements(By.className("box"))));
+            assertEquals("s1", ids(d1.findElements(By.className("red"))));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void updatedByDomChanges() throws Exception {
+        final HtmlUnitDriver driver = newIndexedDriver(HTML);
+        try {
+            assertEquals("d1,p1,d2", ids(driver.findElements(By.className("box"))));
+            assertEquals("s1,s2", ids(driver.findElements(By.tagName("span"))));
+
+            driver.executeScript("var s = document.createElement('span');\n"
+                    + "s.id = 's0';\n"
+                    + "s.className = 'box';\n"
+                    + "document.body.insertBefore(s, document.body.firstChild);\n"
+                    + "document.getElementById('p1').classList.remove('box');\n"
+                    + "document.getElementById('s2').setAttribute('class', 'box');\n"
+                    + "document.getElementById('d1').removeChild(document.getElementById('s1'));\n"
+                    + "document.getElementById('r1').setAttribute('class', 'box');");
+
+            assertEquals("s0,d1,d2,s2,r1", ids(driver.findElements(By.className("box"))));
+            assertEquals("s0,s2", ids(driver.findElements(By.tagName("span"))));
+            assertEquals("d1", ids(driver.findElements(By.className("red"))));
+
+            driver.executeScript("document.getElementById('d2').innerHTML = '<b id=\"b1\" class=\"box\">x</b>';");
+            assertEquals("s0,d1,d2,b1,r1", ids(driver.findElements(By.className("box"))));
+            assertEquals("s0", ids(driver.findElements(By.tagName("span"))));
+            assertEquals("b1", ids(driver.findElement(By.id("d2")).findElements(By.className("box"))));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void statistics() throws Exception {
+        final HtmlUnitDriver driver = newIndexedDriver(HTML);
+        try {
+            driver.findElements(By.tagName("span"));
+            driver.findElements(By.tagName("span"));
+            driver.findElements(By.tagName("span"));
+
+            HtmlUnitElementIndex.Statistics statistics = driver.getElementIndex().getStatistics();
+            assertEquals(1, statistics.getPages());
+            assertTrue(statistics.getKeys() > 0);
+            assertTrue(statistics.getEntries() > 0);
+            assertTrue(statistics.getEstimatedBytes() > 0);
+            assertEquals(1L, statistics.getMisses());
+            assertEquals(2L, statistics.getHits());
+            assertEquals(0L, statistics.getUpdates());
+
+            driver.executeScript("document.getElementById('d2').appendChild(document.createElement('span'));");
+            driver.findElements(By.tagName("span"));
+            statistics = driver.getElementIndex().getStatistics();
+            assertEquals(2L, statistics.getMisses());
+            assertEquals(1L, statistics.getUpdates());
+
+            driver.getElementIndex().setEnabled(false);
+            assertEquals(2, driver.findElements(By.tagName("div")).size());
+            assertEquals(0, driver.getElementIndex().getStatistics().getPages());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void elementIndexCapability() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.ELEMENT_INDEX_CAPABILITY, true);
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            assertTrue(driver.getElementIndex().isEnabled());
+            assertFalse(new HtmlUnitDriver(getBrowserVersion()).getElementIndex().isEnabled());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private HtmlUnitDriver newIndexedDriver(final String html) throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, html);
+        startWebServer(getMockWebConnection(), null);
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true);
+        driver.getElementIndex().setEnabled(true);
+        driver.get(URL_FIRST.toExternalForm());
+        return driver;
+    }
+}
@@ -17,7 +17,29 @@
 
 package org.openqa.selenium.htmlunit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.Test;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
 
 /**
  * Executor tests.
@@ -28,11 +50,11 @@
 public class HtmlUnitExecutorTest {
 
     /*
-     * There is a race condition within HtmlUnitDriver.runAsync such that the
-     * wrapped Runnable executes mainCondition.signal() before
-     * mainCondition.awaitUninterruptibly() is invoked. While this can be reproduced
+     * There was a race condition within HtmlUnitDriver.runAsync such that the
+     * wrapped Runnable executed mainCondition.signal() before
+     * mainCondition.awaitUninterruptibly() was invoked. While this can be reproduced
      * consistently when using an Executor that invokes Runnable.run on the main
-     * Thread, this issue has existed for some time as a race condition.
+     * Thread, this issue had existed for some time as a race condition.
      */
     @Test
     public void testExecutorImmediate() {
@@ -42,4 +64,107 @@ public void testExecutorImmediate() {
         driver.runAsync(() -> {
         });
     }
+
+    @Test
+    public void commandFailureIsRethrownToItsCaller() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver();
+        try {
+            final WebDriverException failure = new WebDriverException("failed");
+            try {
+                driver.runAsync(() -> {
+                    throw failure;
+                });
+                fail("exception expected");
+            }
+            catch (final WebDriverException e) {
+                assertSame(failure, e);
+            }
+
+            // the failure of the previous command is not reported again
+            driver.runAsync(() -> {
+            });
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void commandsAreSerialized() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, PageLoadStrategy.NONE.toString());
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            driver.setExecutor(executor);
+
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicBoolean overlapped = new AtomicBoolean();
+            final AtomicInteger done = new AtomicInteger();
+            for (int i = 0; i < 20; i++) {
+                driver.runAsync(() -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlapped.set(true);
+                    }
+                    Thread.yield();
+                    running.decrementAndGet();
+                    done.incrementAndGet();
+                });
+            }
+
+            // without waiting for page loads the caller is not blocked at all
+            final CountDownLatch last = new CountDownLatch(1);
+            driver.runAsync(last::countDown);
+            assertTrue(last.await(10, TimeUnit.SECONDS));
+            assertEquals(20, done.get());
+            assertFalse(overlapped.get());
+        }
+        finally {
+            executor.shutdownNow();
+            driver.quit();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectedCommandDoesNotHang() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        try {
+            driver.setExecutor(executor);
+            driver.runAsync(() -> {
+            });
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.VIRTUAL_THREADS_CAPABILITY, true);
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            final AtomicReference<Thread> worker = new AtomicReference<>();
+            driver.runAsync(() -> worker.set(Thread.currentThread()));
+
+            assertNotSame(Thread.currentThread(), worker.get());
+            assertEquals(VirtualThreads.isSupported(), isVirtual(worker.get()));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private static boolean isVirtual(final Thread thread) throws Exception {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,155 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.htmlunit.MockWebConnection;
+import org.junit.Test;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.UnexpectedAlertBehaviour;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+/**
+ * Tests for the inline execution of commands.
+ *
+ * @author Ronald Brill
+ */
+public class HtmlUnitInlineExecutionTest {
+
+    private static final String URL = "http://localhost/inline.html";
+
+    private static HtmlUnitDriver createDriver(final String script, final UnexpectedAlertBehaviour behaviour) {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.INLINE_EXECUTION_CAPABILITY, true);
+        if (behaviour != null) {
+            capabilities.setCapability(CapabilityType.UNHANDLED_PROMPT_BEHAVIOUR, behaviour);
+        }
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setDefaultResponse("<html><head><title>start</title></head><body>\n"
+                + "<button id='button' onclick=\"" + script + "\">click</button>\n"
+                + "</body></html>");
+        driver.getWebClient().setWebConnection(connection);
+        driver.get(URL);
+        return driver;
+    }
+
+    @Test
+    public void commandsRunOnCallingThread() {
+        final HtmlUnitDriver driver = createDriver("", null);
+        try {
+            final AtomicReference<Thread> worker = new AtomicReference<>();
+            driver.runAsync(() -> worker.set(Thread.currentThread()));
+            assertSame(Thread.currentThread(), worker.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void alertDismissedAndReported() {
+        final HtmlUnitDriver driver = createDriver("alert('hello'); document.title = 'done';", null);
+        try {
+            try {
+                driver.findElement(By.id("button")).click();
+                fail("UnhandledAlertException expected");
+            }
+            catch (final UnhandledAlertException e) {
+                assertEquals("hello", e.getAlertText());
+            }
+            assertEquals("done", driver.getTitle());
+
+            // reported only once
+            driver.get(URL);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void confirmAcceptedByBehaviour() {
+        final HtmlUnitDriver driver =
+                createDriver("document.title = confirm('sure?');", UnexpectedAlertBehaviour.ACCEPT);
+        try {
+            driver.findElement(By.id("button")).click();
+            assertEquals("true", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void queuedPromptAnswers() {
+        final HtmlUnitDriver driver = createDriver("document.title = prompt('name?', 'default');", null);
+        try {
+            driver.getAlert().queueAccept("HtmlUnit");
+            driver.getAlert().queueAccept(null);
+            driver.getAlert().queueDismiss();
+
+            driver.findElement(By.id("button")).click();
+            assertEquals("HtmlUnit", driver.getTitle());
+
+            driver.findElement(By.id("button")).click();
+            assertEquals("default", driver.getTitle());
+
+            driver.findElement(By.id("button")).click();
+            assertEquals("null", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void timerAlertNotResolvedInline() {
+        final HtmlUnitDriver driver =
+                createDriver("setTimeout(function() { document.title = confirm(\'later?\'); }, 10);", null);
+        try {
+            driver.findElement(By.id("button")).click();
+
+            // raised by a background job, waits to be handled like without inline execution
+            final Alert alert = driver.await(ExpectedConditions.alertIsPresent(), Duration.ofSeconds(20));
+            assertEquals("later?", alert.getText());
+            alert.accept();
+            assertEquals("true", driver.await(d -> {
+                final String title = d.getTitle();
+                return "start".equals(title) ? null : title;
+            }, Duration.ofSeconds(20)));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
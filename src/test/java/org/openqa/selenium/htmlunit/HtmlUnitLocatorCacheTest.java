@@ -0,0 +1,113 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit;
+
+import java.util.List;
+
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link HtmlUnitLocatorCache}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class HtmlUnitLocatorCacheTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html><head></head><body>\n"
+            + "  <div id='a' class='item'>a</div>\n"
+            + "  <div id='b' class='item'>b</div>\n"
+            + "  <span id='c' class='item'>c</span>\n"
+            + "</body></html>";
+
+    @Test
+    public void xpathNotCached() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+        final HtmlUnitLocatorCache cache = HtmlUnitLocatorCache.getInstance();
+
+        final long hits = cache.getStatistics().getHits();
+        final long misses = cache.getStatistics().getMisses();
+        final By locator = By.xpath("//div[contains(@class, 'item')]");
+        assertEquals(2, driver.findElements(locator).size());
+        assertEquals(2, driver.findElements(locator).size());
+        assertEquals(hits, cache.getStatistics().getHits());
+        assertEquals(misses, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void repeatedCssLookupsHitTheCache() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+        final HtmlUnitLocatorCache cache = HtmlUnitLocatorCache.getInstance();
+
+        final By locator = By.cssSelector("body .item");
+        assertEquals(3, driver.findElements(locator).size());
+        final long hits = cache.getStatistics().getHits();
+
+        assertEquals("a", driver.findElement(locator).getText());
+        assertEquals(3, driver.findElements(locator).size());
+        assertEquals("c", driver.findElement(By.tagName("body")).findElement(By.cssSelector("span.item")).getText());
+        assertTrue(cache.getStatistics().getHits() >= hits + 2);
+    }
+
+    @Test
+    public void sameResultsAsHtmlUnit() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+        final DomNode page = (DomNode) ((HtmlUnitDriver) driver).getCurrentWindow().lastPage();
+        final HtmlUnitLocatorCache cache = new HtmlUnitLocatorCache(10);
+
+        for (final String css : new String[] {"div", "div + span", "#b, #a", ":not(div)"}) {
+            final List<DomNode> expected = page.querySelectorAll(css);
+            final List<DomElement> found = cache.querySelectorAll(page, css);
+            assertEquals(css, expected, found);
+            assertEquals(css, expected.get(0), cache.querySelector(page, css));
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+        final DomNode page = (DomNode) ((HtmlUnitDriver) driver).getCurrentWindow().lastPage();
+        final HtmlUnitLocatorCache cache = new HtmlUnitLocatorCache(2);
+
+        cache.querySelectorAll(page, "div");
+        cache.querySelectorAll(page, "span");
+        cache.querySelectorAll(page, "div");
+        cache.querySelectorAll(page, "body");
+
+        HtmlUnitLocatorCache.Statistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(1L, statistics.getHits());
+        assertEquals(3L, statistics.getMisses());
+        assertEquals(1L, statistics.getEvictions());
+
+        // span was the least recently used one
+        cache.querySelectorAll(page, "span");
+        assertEquals(4L, cache.getStatistics().getMisses());
+
+        cache.setMaxSize(0);
+        statistics = cache.getStatistics();
+        assertEquals(0, statistics.getSize());
+        assertEquals(2, cache.querySelectorAll(page, "div").size());
+        assertEquals(4L, statistics.getMisses());
+    }
+}
@@ -0,0 +1,254 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.htmlunit.DefaultPageCreator;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.Page;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.WebWindow;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Tests for the eager page load strategy.
+ *
+ * @author Ronald Brill
+ */
+public class HtmlUnitPageLoadStrategyTest {
+
+    private static final String PAGE_URL = "http://localhost/eager.html";
+    private static final String FRAME_URL = "http://localhost/frame.html";
+
+    private static HtmlUnitDriver newEagerDriver() {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, PageLoadStrategy.EAGER.toString());
+        return new HtmlUnitDriver(capabilities);
+    }
+
+    /**
+     * Holds back the response of the frame till released.
+     */
+    private static final class BlockingWebConnection extends MockWebConnection {
+        private final CountDownLatch frameRequested_ = new CountDownLatch(1);
+        private final CountDownLatch release_ = new CountDownLatch(1);
+        private volatile boolean frameResponded_;
+
+        @Override
+        public WebResponse getResponse(final WebRequest request) throws IOException {
+            if (FRAME_URL.equals(request.getUrl().toExternalForm())) {
+                frameRequested_.countDown();
+                try {
+                    release_.await(20, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                frameResponded_ = true;
+            }
+            return super.getResponse(request);
+        }
+    }
+
+    @Test
+    public void eagerReturnsBeforeFramesAndLoadEvent() throws Exception {
+        final HtmlUnitDriver driver = newEagerDriver();
+        final BlockingWebConnection connection = new BlockingWebConnection();
+        try {
+            connection.setResponse(new URL(PAGE_URL), "<html><head><title>parsed</title><script>\n"
+                    + "  document.addEventListener('DOMContentLoaded', function() {\n"
+                    + "    document.getElementById('state').textContent = 'ready';\n"
+                    + "  });\n"
+                    + "  window.addEventListener('load', function() { document.title = 'loaded'; });\n"
+                    + "</script></head><body>\n"
+                    + "<div id='state'>parsing</div>\n"
+                    + "<iframe src='" + FRAME_URL + "'></iframe>\n"
+                    + "</body></html>");
+            connection.setResponse(new URL(FRAME_URL), "<html><body>frame</body></html>");
+            driver.getWebClient().setWebConnection(connection);
+
+            // returns while the frame is still held back
+            driver.get(PAGE_URL);
+            assertTrue(connection.frameRequested_.await(10, TimeUnit.SECONDS));
+
+            // lookups don't wait for the frame
+            assertEquals(1, driver.findElements(By.xpath("//div[@id='state' and text()='ready']")).size());
+            driver.findElement(By.tagName("iframe"));
+            assertFalse(connection.frameResponded_);
+
+            // everything else waits for the pending load
+            connection.release_.countDown();
+            assertEquals("loaded", driver.getTitle());
+            assertTrue(connection.frameResponded_);
+        }
+        finally {
+            connection.release_.countDown();
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void eagerWithoutJavaScript() throws Exception {
+        final HtmlUnitDriver driver = newEagerDriver();
+        final BlockingWebConnection connection = new BlockingWebConnection();
+        try {
+            driver.setJavascriptEnabled(false);
+            connection.setResponse(new URL(PAGE_URL), "<html><head><title>parsed</title></head><body>\n"
+                    + "<div id='state'>parsed</div>\n"
+                    + "<iframe src='" + FRAME_URL + "'></iframe>\n"
+                    + "</body></html>");
+            connection.setResponse(new URL(FRAME_URL), "<html><body>frame</body></html>");
+            driver.getWebClient().setWebConnection(connection);
+
+            driver.get(PAGE_URL);
+            assertTrue(connection.frameRequested_.await(10, TimeUnit.SECONDS));
+
+            driver.findElement(By.id("state"));
+            assertFalse(connection.frameResponded_);
+
+            connection.release_.countDown();
+            assertEquals("parsed", driver.getTitle());
+            assertTrue(connection.frameResponded_);
+        }
+        finally {
+            connection.release_.countDown();
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void eagerWithoutFrames() throws Exception {
+        final HtmlUnitDriver driver = newEagerDriver();
+        try {
+            final MockWebConnection connection = new MockWebConnection();
+            connection.setResponse(new URL(PAGE_URL), "<html><head><title>parsed</title><script>\n"
+                    + "  window.addEventListener('load', function() { document.title = 'loaded'; });\n"
+                    + "</script></head><body>\n"
+                    + "<div id='state'>parsed</div>\n"
+                    + "</body></html>");
+            driver.getWebClient().setWebConnection(connection);
+
+            driver.get(PAGE_URL);
+            assertEquals("parsed", driver.findElement(By.id("state")).getText());
+            assertEquals("loaded", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void eagerKeepsPageCreator() throws Exception {
+        final HtmlUnitDriver driver = newEagerDriver();
+        try {
+            final AtomicInteger created = new AtomicInteger();
+            driver.getWebClient().setPageCreator(new DefaultPageCreator() {
+                @Override
+                public Page createPage(final WebResponse webResponse, final WebWindow webWindow)
+                        throws IOException {
+                    created.incrementAndGet();
+                    return super.createPage(webResponse, webWindow);
+                }
+            });
+            final MockWebConnection connection = new MockWebConnection();
+            connection.setResponse(new URL(PAGE_URL), "<html><head><title>custom</title></head></html>");
+            driver.getWebClient().setWebConnection(connection);
+
+            driver.get(PAGE_URL);
+            assertEquals("custom", driver.getTitle());
+            assertEquals(1, created.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void noneReportsLateFailureToNextCommand() throws Exception {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, PageLoadStrategy.NONE.toString());
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        try {
+            final CountDownLatch requested = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final MockWebConnection connection = new MockWebConnection() {
+                @Override
+                public WebResponse getResponse(final WebRequest request) throws IOException {
+                    if (FRAME_URL.equals(request.getUrl().toExternalForm())) {
+                        requested.countDown();
+                        try {
+                            release.await(20, TimeUnit.SECONDS);
+                        }
+                        catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("connection lost");
+                    }
+                    return super.getResponse(request);
+                }
+            };
+            connection.setResponse(new URL(PAGE_URL), "<html><head><title>next</title></head></html>");
+            driver.getWebClient().setWebConnection(connection);
+
+            // returns right away, the request fails later
+            driver.get(FRAME_URL);
+            assertTrue(requested.await(10, TimeUnit.SECONDS));
+            release.countDown();
+
+            final long end = System.currentTimeMillis() + 10_000;
+            while (true) {
+                try {
+                    driver.get(PAGE_URL);
+                }
+                catch (final WebDriverException e) {
+                    break;
+                }
+                if (System.currentTimeMillis() > end) {
+                    fail("failure of the previous command not reported");
+                }
+                Thread.sleep(10);
+            }
+
+            // reported once only
+            driver.get(PAGE_URL);
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Tests for {@link HtmlUnitSharedExecutor}.
+ *
+ * @author Ronald Brill
+ */
+public class HtmlUnitSharedExecutorTest {
+
+    @Test
+    public void capabilityRoutesCommandsToSharedExecutor() {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        capabilities.setCapability(HtmlUnitDriver.SHARED_EXECUTOR_CAPABILITY, true);
+
+        final HtmlUnitSharedExecutor executor = HtmlUnitSharedExecutor.getInstance();
+        final long submitted = executor.getStatistics().getSubmitted();
+
+        final HtmlUnitDriver driver = new HtmlUnitDriver(capabilities);
+        final AtomicReference<Thread> worker = new AtomicReference<>();
+        driver.runAsync(() -> worker.set(Thread.currentThread()));
+        driver.quit();
+
+        assertTrue(worker.get().getName(), worker.get().getName().startsWith("htmlunit-driver-"));
+        assertTrue(executor.getStatistics().getSubmitted() > submitted);
+
+        // quitting a driver does not shut down the shared executor
+        final HtmlUnitDriver second = new HtmlUnitDriver(capabilities);
+        second.runAsync(() -> {
+        });
+        second.quit();
+    }
+
+    @Test
+    public void statistics() throws Exception {
+        final HtmlUnitSharedExecutor executor = new HtmlUnitSharedExecutor(1, 2);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        executor.execute(() -> {
+        });
+        executor.execute(() -> {
+        });
+        try {
+            executor.execute(() -> {
+            });
+            fail("RejectedExecutionException expected");
+        }
+        catch (final RejectedExecutionException e) {
+            // expected
+        }
+
+        HtmlUnitSharedExecutor.Statistics statistics = executor.getStatistics();
+        assertEquals(2, statistics.getQueueDepth());
+        assertEquals(2, statistics.getPeakQueueDepth());
+        assertEquals(1, statistics.getActiveThreads());
+        assertEquals(1.0, statistics.getSaturation(), 0.001);
+        assertEquals(3L, statistics.getSubmitted());
+        assertEquals(1L, statistics.getRejected());
+
+        release.countDown();
+        final long end = System.currentTimeMillis() + 10_000;
+        while (executor.getStatistics().getCompleted() < 3 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        statistics = executor.getStatistics();
+        assertEquals(3L, statistics.getCompleted());
+        assertEquals(0, statistics.getQueueDepth());
+        assertEquals(1, statistics.getLargestPoolSize());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void configureAfterUse() {
+        assertSame(HtmlUnitSharedExecutor.getInstance(), HtmlUnitSharedExecutor.getInstance());
+        HtmlUnitSharedExecutor.configure(1, 1);
+    }
+}
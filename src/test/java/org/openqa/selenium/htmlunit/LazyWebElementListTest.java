@@ -0,0 +1,101 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.htmlunit.html.DomElement;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link LazyWebElementList}.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class LazyWebElementListTest extends WebDriverTestCase {
+
+    @Test
+    public void wrapsOnAccess() throws Exception {
+        final StringBuilder html = new StringBuilder("<html><head></head><body><table>\n");
+        for (int i = 0; i < 500; i++) {
+            html.append("<tr><td id='c").append(i).append("'>").append(i).append("</td></tr>\n");
+        }
+        html.append("</table></body></html>");
+        getMockWebConnection().setResponse(URL_FIRST, html.toString());
+        startWebServer(getMockWebConnection(), null);
+
+        final AtomicInteger wrapped = new AtomicInteger();
+        final HtmlUnitDriver driver = new HtmlUnitDriver(getBrowserVersion(), true) {
+            @Override
+            protected HtmlUnitWebElement toWebElement(final DomElement element) {
+                wrapped.incrementAndGet();
+                return super.toWebElement(element);
+            }
+        };
+        try {
+            driver.get(URL_FIRST.toExternalForm());
+
+            for (final By by : new By[] {By.tagName("td"), By.xpath("//td"), By.cssSelector("td")}) {
+                wrapped.set(0);
+                final List<WebElement> cells = driver.findElements(by);
+                assertEquals(500, cells.size());
+                assertEquals(0, wrapped.get());
+
+                assertEquals("c1", cells.get(1).getAttribute("id"));
+                assertSame(cells.get(1), cells.get(1));
+                assertEquals(driver.findElement(By.id("c1")), cells.get(1));
+                assertEquals(2, wrapped.get());
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void modifiable() throws Exception {
+        final String html = "<html><head></head><body>\n"
+                + "  <p id='p1'>1</p><p id='p2'>2</p><p id='p3'>3</p>\n"
+                + "</body></html>";
+        final List<WebElement> paragraphs = loadPage2(html).findElements(By.tagName("p"));
+
+        final WebElement first = paragraphs.remove(0);
+        assertEquals("p1", first.getAttribute("id"));
+        assertEquals("p2,p3", ids(paragraphs));
+
+        paragraphs.add(first);
+        Collections.reverse(paragraphs);
+        assertEquals("p1,p3,p2", ids(paragraphs));
+
+        final Iterator<WebElement> iterator = paragraphs.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("p3,p2", ids(paragraphs));
+
+        paragraphs.clear();
+        assertTrue(paragraphs.isEmpty());
+    }
+}
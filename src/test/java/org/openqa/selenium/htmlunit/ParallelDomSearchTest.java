@@ -0,0 +1,193 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlPage;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+/**
+ * Tests for {@link ParallelDomSearch}.
+ *
+ * @author Ronald Brill
+ */
+public class ParallelDomSearchTest {
+
+    private static final By[] LOCATORS = {
+        By.tagName("td"), By.tagName("TR"), By.className("odd"), By.cssSelector("tr.odd > td:first-child"),
+        By.cssSelector("#r7 td, #r3 td"), By.xpath("//td[@class='total']"), By.xpath("//tr[@id='r5']/td"),
+        By.id("r42"), By.name("n1")
+    };
+
+    /**
+     * @param rows the number of table rows
+     * @return a static page with four elements per row
+     */
+    static String largePage(final int rows) {
+        final StringBuilder html = new StringBuilder("<html><head><title>report</title></head><body>\n");
+        html.append("<h1>Report</h1><div id='content'><div class='section'><table><tbody>\n");
+        for (int i = 0; i < rows; i++) {
+            html.append("<tr id='r").append(i).append("' class='").append(i % 2 == 0 ? "even" : "odd").append("'>")
+                .append("<td>").append(i).append("</td><td name='n").append(i % 10).append("'>item</td>")
+                .append("<td class='total'>").append(i * 3).append("</td></tr>\n");
+        }
+        html.append("</tbody></table></div></div><p class='odd'>end</p></body></html>");
+        return html.toString();
+    }
+
+    private static HtmlUnitDriver open(final String html) {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, false);
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setDefaultResponse(html);
+        driver.getWebClient().setWebConnection(connection);
+        driver.get("http://localhost/report.html");
+        return driver;
+    }
+
+    @Test
+    public void sameResultsAsSequentialSearch() {
+        final HtmlUnitDriver driver = open(largePage(3000));
+        try {
+            final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+            final List<Predicate<DomElement>> matchers = new ArrayList<>();
+            matchers.add(element -> true);
+            matchers.add(element -> false);
+            matchers.add(element -> "td".equals(element.getLocalName()));
+            matchers.add(element -> "odd".equals(element.getAttribute("class")));
+            matchers.add(element -> element.getAttribute("id").endsWith("99"));
+
+            for (final Predicate<DomElement> matcher : matchers) {
+                for (final DomNode root : new DomNode[] {page, page.getElementById("content"),
+                    page.getElementById("r1"), page.getElementById("r1").getFirstElementChild()}) {
+                    final List<DomElement> expected = new ArrayList<>();
+                    for (final DomElement element : root.getDomElementDescendants()) {
+                        if (matcher.test(element)) {
+                            expected.add(element);
+                        }
+                    }
+                    assertEquals(expected, ParallelDomSearch.findAll(root, matcher));
+                }
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void findElements() {
+        final HtmlUnitDriver driver = open(largePage(3000));
+        try {
+            final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+            for (final By locator : LOCATORS) {
+                driver.setParallelFind(false);
+                final int expected = driver.findElements(locator).size();
+                final List<String> expectedTexts = texts(driver, locator);
+
+                driver.setParallelFind(true);
+                assertEquals(ForkJoinPool.getCommonPoolParallelism() > 1,
+                        ParallelDomSearch.isApplicable(driver, page));
+                assertEquals(locator.toString(), expected, driver.findElements(locator).size());
+                assertEquals(locator.toString(), expectedTexts, texts(driver, locator));
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void notApplicable() {
+        final HtmlUnitDriver driver = open(largePage(3000));
+        try {
+            final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+            assertFalse(ParallelDomSearch.isApplicable(driver, page));
+
+            driver.setParallelFind(true);
+            driver.setJavascriptEnabled(true);
+            assertFalse(ParallelDomSearch.isApplicable(driver, page));
+        }
+        finally {
+            driver.quit();
+        }
+
+        final HtmlUnitDriver small = open(largePage(10));
+        try {
+            small.setParallelFind(true);
+            assertFalse(ParallelDomSearch.isApplicable(small, (HtmlPage) small.getCurrentWindow().lastPage()));
+        }
+        finally {
+            small.quit();
+        }
+    }
+
+    @Test
+    public void changedDuringSearch() {
+        final HtmlUnitDriver driver = open(largePage(3000));
+        try {
+            final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+            final DomElement last = page.getElementById("r2999");
+            final AtomicInteger calls = new AtomicInteger();
+            final AtomicBoolean changed = new AtomicBoolean();
+            final Predicate<DomElement> matcher = element -> {
+                calls.incrementAndGet();
+                if (element == last && !changed.getAndSet(true)) {
+                    last.setAttribute("class", "changed");
+                }
+                return "changed".equals(element.getAttribute("class"));
+            };
+
+            final List<DomElement> found = ParallelDomSearch.findAll(page, matcher);
+            assertEquals(1, found.size());
+            assertEquals(last, found.get(0));
+            // searched twice, the second time sequentially
+            assertEquals(2 * countElements(page), calls.get());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private static int countElements(final HtmlPage page) {
+        int count = 0;
+        for (final DomElement element : page.getDomElementDescendants()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static List<String> texts(final HtmlUnitDriver driver, final By locator) {
+        final List<String> texts = new ArrayList<>();
+        driver.findElements(locator).forEach(element -> texts.add(element.getText()));
+        return texts;
+    }
+}
@@ -0,0 +1,196 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlPage;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link SimpleXPath}; every supported expression has to give the
+ * same result as the XPath engine.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class SimpleXPathTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html><head><title>t</title></head><body>\n"
+            + "  <div id='outer' class='box'>\n"
+            + "    <DIV id='inner' class='box' data-role=''>\n"
+            + "      <p id='p1' name='item'>one</p>\n"
+            + "      <div id='deep'><p id='p2' name='item' class='x'>two</p></div>\n"
+            + "    </DIV>\n"
+            + "    <p id='p3'>three</p>\n"
+            + "    <my-widget id='w1' data-test-id='widget'><span>w</span></my-widget>\n"
+            + "  </div>\n"
+            + "  <table id='t'><tr><td>1</td><td>2</td></tr><tr><td id='dup'>3</td></tr></table>\n"
+            + "  <span id='dup' title=\"it's\">dup</span>\n"
+            + "  <form name='f'><input name='q' type='text'><INPUT name='q' type='hidden'></form>\n"
+            + "  <svg id='s'><rect id='r1' width='1'></rect><foreignObject id='fo'></foreignObject>"
+            + "<g><rect id='r2'></rect></g></svg>\n"
+            + "  <script>\n"
+            + "    var later = document.createElement('section');\n"
+            + "    later.setAttribute('id', 'later');\n"
+            + "    later.innerHTML = '<p id=\"p4\">four</p>';\n"
+            + "    document.body.appendChild(later);\n"
+            + "    document.getElementById('p3').id = 'p3b';\n"
+            + "    var plain = document.createElementNS(null, 'p');\n"
+            + "    plain.setAttribute('id', 'plain');\n"
+            + "    document.body.appendChild(plain);\n"
+            + "    var xhtml = document.createElementNS('http://www.w3.org/1999/xhtml', 'p');\n"
+            + "    xhtml.setAttribute('id', 'xhtml');\n"
+            + "    document.body.appendChild(xhtml);\n"
+            + "  </script>\n"
+            + "</body></html>";
+
+    private static final String[] EXPRESSIONS = {
+        "//p", "//div", "//*", "/html/body/div", "/html/body/*", "/html//p", "/html/body/div/div/p",
+        "//div/p", "//div//p", "//div/div", "//div//div//p",
+        "//p[@name='item']", "//p[@name=\"item\"]", "//p[@name = 'item']", "//*[@class='box']",
+        "//div[@class='box']//p", "//p[@class]", "//*[@data-role]", "//*[@data-role='']",
+        "//p[@name='item'][@class='x']", "//p[@name='item' and @class='x']", "//p[@id='p3']",
+        "//*[@id='outer']//p", "//*[@id='inner']/p", "//*[@id='dup']", "//td[@id='dup']", "//*[@id='p3b']",
+        "//*[@id='later']/p", "//*[@id='missing']//p", "//*[@id='t']//td", "//*[@id='s']//rect",
+        "//rect", "//svg/rect", "//g/rect", "//foreignobject", "//*[@id='fo']", "//*[@width='1']",
+        "//my-widget", "//*[@data-test-id='widget']/span", "//input[@name='q']", "//input[@type='hidden']",
+        "//span[@title=\"it's\"]", "//tr/td", "//table/tr", "//table/tbody/tr/td",
+        "(//p)[1]", "(//p)[3]", "(//p)[99]", "(//*[@id='outer']//p)[2]", "( //td )[ 2 ]",
+        "//p[@name='nothing']", "//nothing", "/p", "/html", "/*", "//html", "//head/title",
+        ".//p", "./p", "./div/p", ".//*[@id='p2']", ".//div//p", "(.//p)[2]", ".//*[@id='dup']"
+    };
+
+    private static final String[] UNSUPPORTED = {
+        "", ".", "/", "//", "p", "..//p", "//p[1]", "//p[@name='a' or @name='b']", "//p[text()='one']",
+        "//p[contains(@class, 'x')]", "//P", "//p[@NAME='item']", "//svg:rect", "//p/..", "//p/text()",
+        "//p/@id", "//p | //div", "count(//p)", "//p[@name='item'", "//p[@name=item]", "(//p)[0]",
+        "(//p)[last()]", "(//p)", "//descendant::p", "//p[@name='item']/following-sibling::p",
+        "//p[@name!='item']", "//p[ and ]"
+    };
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void sameResultsAsXPathEngine() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+
+        assertSameResults(page, null);
+        for (final String id : new String[] {"outer", "inner", "deep", "t", "s", "later"}) {
+            assertSameResults(page.getElementById(id), null);
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void sameResultsAsXPathEngineIndexed() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+        final HtmlUnitElementIndex index = driver.getElementIndex();
+
+        index.setEnabled(true);
+        try {
+            assertSameResults(page, index);
+            assertSameResults(page.getElementById("inner"), index);
+        }
+        finally {
+            index.setEnabled(false);
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void unsupported() throws Exception {
+        for (final String expression : UNSUPPORTED) {
+            assertNull(expression, SimpleXPath.compile(expression));
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void toMatcher() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final HtmlPage page = (HtmlPage) driver.getCurrentWindow().lastPage();
+
+        for (final String expression : new String[] {"//p", "//*", "//p[@name='item']", "//*[@data-role]",
+            "//rect", "//input[@type='hidden']"}) {
+            final Predicate<DomElement> matcher = SimpleXPath.compile(expression).toMatcher();
+            final List<DomElement> found = new ArrayList<>();
+            for (final DomElement element : page.getDomElementDescendants()) {
+                if (matcher.test(element)) {
+                    found.add(element);
+                }
+            }
+            assertEquals(expression, page.getByXPath(expression), found);
+        }
+
+        for (final String expression : new String[] {"//*[@id='outer']", ".//p", "(//p)[1]", "//div/p", "/html"}) {
+            assertNull(expression, SimpleXPath.compile(expression).toMatcher());
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void findElements() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+
+        assertEquals("p1,p2,p3b,p4,xhtml", ids(driver.findElements(By.xpath("//p"))));
+        assertEquals("p2", driver.findElement(By.xpath("(//p)[2]")).getAttribute("id"));
+        assertEquals(0, driver.findElements(By.xpath("(//p)[9]")).size());
+
+        final WebElement outer = driver.findElement(By.xpath("//*[@id='outer']"));
+        assertEquals("p1,p2,p3b", ids(outer.findElements(By.xpath(".//p"))));
+        assertEquals("p3b", outer.findElement(By.xpath("./p")).getAttribute("id"));
+        assertEquals("p1,p2,p3b,p4,xhtml", ids(outer.findElements(By.xpath("//p"))));
+
+        // removed elements are no longer found by their id
+        driver.executeScript("var p = document.getElementById('p2'); p.parentNode.removeChild(p);");
+        assertEquals(0, driver.findElements(By.xpath("//*[@id='p2']")).size());
+        assertEquals("p1,p3b", ids(outer.findElements(By.xpath(".//p"))));
+    }
+
+    private static void assertSameResults(final DomNode context, final HtmlUnitElementIndex index) {
+        for (final String expression : EXPRESSIONS) {
+            final String message = expression + " from " + context;
+            final SimpleXPath xpath = SimpleXPath.compile(expression);
+            assertNotNull(message, xpath);
+
+            final List<DomElement> found = xpath.evaluate(context, index);
+            final List<?> expected = context.getByXPath(expression);
+            assertEquals(message, expected, found);
+        }
+    }
+}
@@ -1675,6 +1675,19 @@ protected Integer getWebClientTimeout() {
         return null;
     }
 
+    /**
+     * Joins the ids of the given elements.
+     * @param elements the elements
+     * @return the ids separated by comma
+     */
+    protected static String ids(final List<WebElement> elements) {
+        final List<String> ids = new ArrayList<>();
+        for (final WebElement element : elements) {
+            ids.add(element.getAttribute("id"));
+        }
+        return String.join(",", ids);
+    }
+
     /**
      * Needed as Jetty starting from 9.4.4 expects UTF-8 encoding by default.
      */
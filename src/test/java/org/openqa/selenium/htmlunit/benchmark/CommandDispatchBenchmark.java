@@ -0,0 +1,221 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmark;
+
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Measures the latency of the commands dispatched through
+ * {@code HtmlUnitDriver.runAsync(Runnable)} (click, sendKeys and get), comparing
+ * the command queue against the former busy-wait implementation and the inline
+ * execution on the calling thread.
+ *
+ * @author Ronald Brill
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+
+    private static final String PAGE = "<html><head><title>bench</title></head><body>\n"
+            + "<button id='button' onclick='window.clicks = (window.clicks || 0) + 1'>click</button>\n"
+            + "<input id='input' type='text'>\n"
+            + "</body></html>";
+
+    @Param({"queue", "legacy", "inline"})
+    private String dispatch_;
+
+    private HtmlUnitDriver driver_;
+    private URL url_;
+    private WebElement button_;
+    private WebElement input_;
+
+    /**
+     * Creates the driver and loads the test page.
+     *
+     * @throws Exception in case of error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        url_ = new URL("http://localhost/bench.html");
+        driver_ = "legacy".equals(dispatch_) ? new LegacyDispatchDriver() : new BenchmarkDriver();
+        driver_.setInlineExecution("inline".equals(dispatch_));
+        driver_.get(url_.toExternalForm());
+        button_ = driver_.findElement(By.id("button"));
+        input_ = driver_.findElement(By.id("input"));
+    }
+
+    /**
+     * Keeps the input value from growing across iterations.
+     */
+    @Setup(Level.Iteration)
+    public void clearInput() {
+        input_.clear();
+    }
+
+    /**
+     * Quits the driver.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    /**
+     * Clicks a button.
+     */
+    @Benchmark
+    public void click() {
+        button_.click();
+    }
+
+    /**
+     * Types a single character.
+     */
+    @Benchmark
+    public void sendKeys() {
+        input_.sendKeys("a");
+    }
+
+    /**
+     * Loads the page.
+     */
+    @Benchmark
+    public void get() {
+        driver_.get(url_.toExternalForm());
+        button_ = driver_.findElement(By.id("button"));
+        input_ = driver_.findElement(By.id("input"));
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args ignored
+     * @throws RunnerException in case of error
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CommandDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Driver serving the benchmark page from memory.
+     */
+    private static class BenchmarkDriver extends HtmlUnitDriver {
+        BenchmarkDriver() {
+            super(BrowserVersion.BEST_SUPPORTED, true);
+            final MockWebConnection connection = new MockWebConnection();
+            connection.setDefaultResponse(PAGE);
+            getWebClient().setWebConnection(connection);
+        }
+    }
+
+    /**
+     * Replica of the former {@code runAsync} implementation, spinning with
+     * {@code Thread.sleep(10)} while a previous command is still running and
+     * handing over the result through a shared lock and condition.
+     * Alerts are not supported here; the benchmark page does not raise any.
+     */
+    private static final class LegacyDispatchDriver extends BenchmarkDriver {
+        private final Lock conditionLock_ = new ReentrantLock();
+        private final Condition mainCondition_ = conditionLock_.newCondition();
+        private final ExecutorService executor_ = Executors.newCachedThreadPool();
+        private boolean runAsyncRunning_;
+        private RuntimeException exception_;
+
+        @Override
+        protected void runAsync(final Runnable r) {
+            while (runAsyncRunning_) {
+                try {
+                    Thread.sleep(10);
+                }
+                catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            conditionLock_.lock();
+            runAsyncRunning_ = true;
+
+            exception_ = null;
+            final Runnable wrapped = () -> {
+                try {
+                    r.run();
+                }
+                catch (final RuntimeException e) {
+                    exception_ = e;
+                }
+                finally {
+                    conditionLock_.lock();
+                    try {
+                        runAsyncRunning_ = false;
+                        mainCondition_.signal();
+                    }
+                    finally {
+                        conditionLock_.unlock();
+                    }
+                }
+            };
+            executor_.execute(wrapped);
+
+            if (this.runAsyncRunning_) {
+                mainCondition_.awaitUninterruptibly();
+                conditionLock_.unlock();
+            }
+
+            if (exception_ != null) {
+                throw exception_;
+            }
+        }
+
+        @Override
+        public void quit() {
+            super.quit();
+            executor_.shutdownNow();
+        }
+    }
+}
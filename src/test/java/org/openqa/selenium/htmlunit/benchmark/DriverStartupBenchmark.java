@@ -0,0 +1,147 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Measures the construction time of a driver; the main method additionally
+ * reports the heap retained by an idle driver.
+ *
+ * @author Ronald Brill
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DriverStartupBenchmark {
+
+    private static final Log LOG = LogFactory.getLog(DriverStartupBenchmark.class);
+
+    @Param({"default", "fast"})
+    private String startup_;
+
+    private HtmlUnitDriver driver_;
+
+    /**
+     * Creates a driver.
+     *
+     * @return the driver
+     */
+    @Benchmark
+    public HtmlUnitDriver construct() {
+        driver_ = createDriver("fast".equals(startup_));
+        return driver_;
+    }
+
+    /**
+     * Quits the driver created by the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void quit() {
+        if (driver_ != null) {
+            driver_.quit();
+            driver_ = null;
+        }
+    }
+
+    private static HtmlUnitDriver createDriver(final boolean fast) {
+        final DesiredCapabilities capabilities =
+                new DesiredCapabilities(Browser.HTMLUNIT.browserName(), "", Platform.ANY);
+        if (fast) {
+            capabilities.setCapability(HtmlUnitDriver.IN_MEMORY_CLIPBOARD_CAPABILITY, true);
+            capabilities.setCapability(HtmlUnitDriver.SHARED_EXECUTOR_CAPABILITY, true);
+        }
+        return new HtmlUnitDriver(capabilities);
+    }
+
+    /**
+     * Returns the heap retained by one idle driver, determined by creating the given
+     * number of drivers and comparing the used heap after garbage collection.
+     *
+     * @param count the number of drivers to create
+     * @param fast whether to use the fast startup capabilities
+     * @return the retained bytes per driver
+     */
+    static long retainedHeapPerDriver(final int count, final boolean fast) {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        // warm up class loading before taking the baseline
+        createDriver(fast).quit();
+        final long before = usedHeapAfterGc(memory);
+
+        final List<HtmlUnitDriver> drivers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            drivers.add(createDriver(fast));
+        }
+        final long after = usedHeapAfterGc(memory);
+
+        for (final HtmlUnitDriver driver : drivers) {
+            driver.quit();
+        }
+        return (after - before) / count;
+    }
+
+    private static long usedHeapAfterGc(final MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Runs the benchmark and reports the retained heap.
+     *
+     * @param args ignored
+     * @throws RunnerException in case of error
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DriverStartupBenchmark.class.getSimpleName()).build()).run();
+
+        LOG.info("Retained heap per idle driver (default): " + retainedHeapPerDriver(50, false) + " bytes");
+        LOG.info("Retained heap per idle driver (fast): " + retainedHeapPerDriver(50, true) + " bytes");
+    }
+}
@@ -0,0 +1,132 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.openqa.selenium.htmlunit.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitLocatorCache;
+
+/**
+ * Measures CSS lookups with and without the {@link HtmlUnitLocatorCache};
+ * the difference is the cost of parsing the selectors on every call.
+ *
+ * @author Ronald Brill
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocatorCacheBenchmark {
+
+    private static final By CSS = By.cssSelector("form#login fieldset > input[type='text'][name^='user']");
+    private static final By SCOPED_CSS = By.cssSelector("input[type='password']");
+
+    @Param({"cached", "uncached"})
+    private String cache_;
+
+    private HtmlUnitDriver driver_;
+    private WebElement form_;
+
+    /**
+     * Creates the driver and loads the test page.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        HtmlUnitLocatorCache.getInstance().setMaxSize(
+                "cached".equals(cache_) ? HtmlUnitLocatorCache.DEFAULT_MAX_SIZE : 0);
+
+        final StringBuilder html = new StringBuilder("<html><head><title>bench</title></head><body>\n");
+        for (int i = 0; i < 20; i++) {
+            html.append("<div class='row'><span>").append(i).append("</span><a href='#'>link</a></div>\n");
+        }
+        html.append("<form id='login'><fieldset>\n"
+                + "<input type='text' name='username'>\n"
+                + "<input type='password' name='password'>\n"
+                + "</fieldset></form>\n"
+                + "</body></html>");
+
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setDefaultResponse(html.toString());
+        driver_.getWebClient().setWebConnection(connection);
+        driver_.get("http://localhost/bench.html");
+        form_ = driver_.findElement(By.id("login"));
+    }
+
+    /**
+     * Quits the driver and restores the cache.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver_.quit();
+        HtmlUnitLocatorCache.getInstance().setMaxSize(HtmlUnitLocatorCache.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Finds elements using a CSS selector.
+     *
+     * @return the elements found
+     */
+    @Benchmark
+    public List<WebElement> css() {
+        return driver_.findElements(CSS);
+    }
+
+    /**
+     * Finds an element below another one using a CSS selector.
+     *
+     * @return the element found
+     */
+    @Benchmark
+    public WebElement scopedCss() {
+        return form_.findElement(SCOPED_CSS);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args ignored
+     * @throws RunnerException in case of error
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocatorCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Measures {@link HtmlUnitDriver#findElements(By)} on generated large static pages
+ * with and without {@link HtmlUnitDriver#setParallelFind(boolean) parallel find};
+ * the speedup depends on the number of processors available.
+ *
+ * @author Ronald Brill
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelFindBenchmark {
+
+    private static final By CSS = By.cssSelector("tr.odd > td.total");
+    private static final By XPATH = By.xpath("//td[@class='total']");
+    private static final By CLASS_NAME = By.className("odd");
+
+    @Param({"25000", "100000"})
+    private int rows_;
+
+    @Param({"sequential", "parallel"})
+    private String mode_;
+
+    private HtmlUnitDriver driver_;
+
+    /**
+     * Creates the driver and loads a generated report page with four elements per row.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StringBuilder html = new StringBuilder("<html><head><title>report</title></head><body>\n");
+        html.append("<h1>Report</h1>\n");
+        // several sections, like a report dump
+        final int sections = 10;
+        for (int s = 0; s < sections; s++) {
+            html.append("<div class='section'><table><tbody>\n");
+            for (int i = 0; i < rows_ / sections; i++) {
+                html.append("<tr class='").append(i % 2 == 0 ? "even" : "odd").append("'><td>").append(i)
+                    .append("</td><td>item</td><td class='total'>").append(i * 3).append("</td></tr>\n");
+            }
+            html.append("</tbody></table></div>\n");
+        }
+        html.append("</body></html>");
+
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, false);
+        driver_.setParallelFind("parallel".equals(mode_));
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setDefaultResponse(html.toString());
+        driver_.getWebClient().setWebConnection(connection);
+        driver_.get("http://localhost/report.html");
+    }
+
+    /**
+     * Quits the driver.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    /**
+     * Finds elements using a CSS selector.
+     *
+     * @return the elements found
+     */
+    @Benchmark
+    public List<WebElement> css() {
+        return driver_.findElements(CSS);
+    }
+
+    /**
+     * Finds elements using a simple XPath expression.
+     *
+     * @return the elements found
+     */
+    @Benchmark
+    public List<WebElement> xpath() {
+        return driver_.findElements(XPATH);
+    }
+
+    /**
+     * Finds elements by class name.
+     *
+     * @return the elements found
+     */
+    @Benchmark
+    public List<WebElement> className() {
+        return driver_.findElements(CLASS_NAME);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args ignored
+     * @throws RunnerException in case of error
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParallelFindBenchmark.class.getSimpleName()).build()).run();
+    }
+}
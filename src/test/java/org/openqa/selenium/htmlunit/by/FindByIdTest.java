@@ -153,4 +153,25 @@ public void relativeElementsById() throws Exception {
         final List<WebElement> elements = ctx.findElements(By.id("testDivId"));
         assertEquals(0, elements.size());
     }
+
+    @Test
+    public void relativeElementByIdWithQuotes() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <div id=\"it's\">outside</div>\n"
+                        + "  <div id='ctx'>\n"
+                        + "    <div id=\"it's\">inside</div>\n"
+                        + "    <div id='say\"hi\"'>quoted</div>\n"
+                        + "  </div>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        final WebElement ctx = driver.findElement(By.id("ctx"));
+        assertEquals("inside", ctx.findElement(By.id("it's")).getText());
+        assertEquals("quoted", ctx.findElement(By.id("say\"hi\"")).getText());
+        assertEquals(1, ctx.findElements(By.id("it's")).size());
+    }
 }
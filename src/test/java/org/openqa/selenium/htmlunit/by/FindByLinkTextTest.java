@@ -22,6 +22,7 @@
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.htmlunit.WebDriverTestCase;
@@ -180,4 +181,89 @@ public void missingHref() throws Exception {
         final WebElement elem = body.findElement(By.linkText("Link 1"));
         assertEquals("Link 1", elem.getText());
     }
+
+    @Test
+    public void linkTextChangedByJavaScript() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <div id='ctx'>\n"
+                        + "    <a id='a1'>Link 1</a>\n"
+                        + "    <a id='a2'>Link 2</a>\n"
+                        + "  </div>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        final WebElement ctx = driver.findElement(By.id("ctx"));
+        assertEquals("a1", driver.findElement(By.linkText("Link 1")).getAttribute("id"));
+        assertEquals(0, ctx.findElements(By.linkText("Link 3")).size());
+
+        ((JavascriptExecutor) driver).executeScript(
+                "document.getElementById('a1').textContent = 'Link 3';"
+                + "var a = document.createElement('a');"
+                + "a.id = 'a4';"
+                + "a.textContent = 'Link 3';"
+                + "document.getElementById('ctx').appendChild(a);");
+
+        assertEquals(0, driver.findElements(By.linkText("Link 1")).size());
+        final List<WebElement> elements = ctx.findElements(By.linkText("Link 3"));
+        assertEquals(2, elements.size());
+        assertEquals("a1", elements.get(0).getAttribute("id"));
+        assertEquals("a4", elements.get(1).getAttribute("id"));
+        assertEquals("a1", ctx.findElement(By.linkText("Link 3")).getAttribute("id"));
+
+        ((JavascriptExecutor) driver).executeScript("document.getElementById('a2').style.display = 'none';");
+        assertEquals(0, driver.findElements(By.linkText("Link 2")).size());
+    }
+
+    @Test
+    public void linkTextShownByDisabledStyleSheet() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "  <style>.hide { display: none; }</style>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <a id='a1' class='hide'>Link 1</a>\n"
+                        + "  <a id='a2'>Link 2</a>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        assertEquals(0, driver.findElements(By.linkText("Link 1")).size());
+
+        // changes the styles without any DOM change
+        ((JavascriptExecutor) driver).executeScript("document.getElementsByTagName('style')[0].disabled = true;");
+        assertEquals(1, driver.findElements(By.linkText("Link 1")).size());
+        assertEquals(1, driver.findElements(By.linkText("Link 2")).size());
+    }
+
+    @Test
+    public void linkTextHiddenByInsertedRule() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "  <style>.other { color: red; }</style>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <div id='menu'><a id='a1'>Link 1</a></div>\n"
+                        + "  <a id='a2'>Link 2</a>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        final WebElement menu = driver.findElement(By.id("menu"));
+        assertEquals(1, driver.findElements(By.linkText("Link 1")).size());
+        assertEquals(1, menu.findElements(By.linkText("Link 1")).size());
+
+        // changes the styles without any DOM change
+        ((JavascriptExecutor) driver).executeScript(
+                "document.styleSheets[0].insertRule('#a1 { display: none; }', 0);");
+        assertEquals(0, driver.findElements(By.linkText("Link 1")).size());
+        assertEquals(0, menu.findElements(By.linkText("Link 1")).size());
+        assertEquals(1, driver.findElements(By.linkText("Link 2")).size());
+
+        ((JavascriptExecutor) driver).executeScript("document.styleSheets[0].deleteRule(0);");
+        assertEquals(1, menu.findElements(By.linkText("Link 1")).size());
+    }
 }
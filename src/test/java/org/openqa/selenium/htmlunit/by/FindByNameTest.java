@@ -112,4 +112,28 @@ public void relativeElementsByName() throws Exception {
         assertEquals(1, elements.size());
         assertEquals("testId", elements.get(0).getAttribute("id"));
     }
+
+    @Test
+    public void relativeElementsByNameWithQuotes() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <form>\n"
+                        + "    <input id='outside' name=\"it's\">\n"
+                        + "    <div id='ctx'>\n"
+                        + "      <input id='testId' name=\"it's\">\n"
+                        + "      <input id='testId2' name=\"it's\">\n"
+                        + "    </div>\n"
+                        + "  <form>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        final WebElement ctx = driver.findElement(By.id("ctx"));
+        final List<WebElement> elements = ctx.findElements(By.name("it's"));
+        assertEquals(2, elements.size());
+        assertEquals("testId", elements.get(0).getAttribute("id"));
+        assertEquals("testId2", elements.get(1).getAttribute("id"));
+    }
 }
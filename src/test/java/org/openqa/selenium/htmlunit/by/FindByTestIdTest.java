@@ -0,0 +1,206 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.by;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.HtmlPage;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.ByTestId;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitElementFinder.HtmlUnitElementLocator;
+import org.openqa.selenium.htmlunit.HtmlUnitWebElement;
+import org.openqa.selenium.htmlunit.WebDriverTestCase;
+import org.openqa.selenium.htmlunit.junit.BrowserRunner;
+
+/**
+ * Tests for {@link ByTestId} and custom locators.
+ *
+ * @author Ronald Brill
+ */
+@RunWith(BrowserRunner.class)
+public class FindByTestIdTest extends WebDriverTestCase {
+
+    private static final String HTML = "<html>\n"
+            + "<head>\n"
+            + "</head>\n"
+            + "<body>\n"
+            + "  <div id='ctx' data-testid='list'>\n"
+            + "    <p id='p1' data-testid='item'>one</p>\n"
+            + "    <p id='p2' data-testid='item' data-qa='second'>two</p>\n"
+            + "  </div>\n"
+            + "  <p id='p3' data-testid='item'>three</p>\n"
+            + "  <p id='p4' data-testid=\"it's\">four</p>\n"
+            + "  <svg><rect id='r1' data-testid='item'></rect></svg>\n"
+            + "</body>\n"
+            + "</html>\n";
+
+    @Test
+    public void elementsByTestId() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+
+        assertEquals("p1,p2,p3,r1", ids(driver.findElements(ByTestId.testId("item"))));
+        assertEquals("p1", driver.findElement(ByTestId.testId("item")).getAttribute("id"));
+        assertEquals("p4", driver.findElement(ByTestId.testId("it's")).getAttribute("id"));
+        assertEquals("p2", driver.findElement(new ByTestId("data-QA", "second")).getAttribute("id"));
+        assertEquals(0, driver.findElements(ByTestId.testId("missing")).size());
+
+        final WebElement ctx = driver.findElement(By.id("ctx"));
+        assertEquals("p1,p2", ids(ctx.findElements(ByTestId.testId("item"))));
+        assertEquals(0, ctx.findElements(ByTestId.testId("list")).size());
+
+        // same result as the css attribute selector
+        for (final String testId : new String[] {"item", "list", "it's", "missing"}) {
+            assertEquals(ids(driver.findElements(By.cssSelector("[data-testid=\"" + testId + "\"]"))),
+                    ids(driver.findElements(ByTestId.testId(testId))));
+        }
+    }
+
+    @Test
+    public void cssSelectorWithSpecialCharacters() throws Exception {
+        final WebDriver driver = loadPage2("<html><body>\n"
+                + "<p id='p1'>one</p><p id='p2'>two</p><p id='p3'>three</p><p id='p4'>four</p>\n"
+                + "<p id='p5'>five</p>\n"
+                + "<script>\n"
+                + "  document.getElementById('p1').setAttribute('data-testid', 'line\\nbreak');\n"
+                + "  document.getElementById('p2').setAttribute('data-testid', 'a\"b\\'c\\\\d');\n"
+                + "  document.getElementById('p3').setAttribute('data-testid', '1 [x] {y}\\t');\n"
+                + "  document.getElementById('p4').setAttribute('data-test.id', 'x');\n"
+                + "  document.getElementById('p5').setAttribute('data-testid', '');\n"
+                + "</script>\n"
+                + "</body></html>");
+
+        final ByTestId[] locators = {
+            ByTestId.testId("line\nbreak"),
+            ByTestId.testId("a\"b'c\\d"),
+            ByTestId.testId("1 [x] {y}\t"),
+            new ByTestId("data-test.id", "x"),
+            ByTestId.testId(""),
+        };
+        for (int i = 0; i < locators.length; i++) {
+            assertEquals("p" + (i + 1), ids(driver.findElements(locators[i])));
+            // the css attribute selector used by other drivers
+            assertEquals("p" + (i + 1), ids(locators[i].findElements(driver)));
+        }
+    }
+
+    @Test
+    public void elementByTestIdNotFound() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+
+        try {
+            driver.findElement(ByTestId.testId("missing"));
+            fail("NoSuchElementException expected");
+        }
+        catch (final NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIdChangedByJavaScript() throws Exception {
+        final WebDriver driver = loadPage2(HTML);
+        assertEquals("p1,p2,p3,r1", ids(driver.findElements(ByTestId.testId("item"))));
+
+        final JavascriptExecutor executor = (JavascriptExecutor) driver;
+        executor.executeScript("document.getElementById('p1').setAttribute('data-testid', 'other');\n"
+                + "document.getElementById('p3').removeAttribute('data-testid');\n"
+                + "document.getElementById('p4').setAttribute('data-testid', 'item');\n"
+                + "document.getElementById('r1').setAttribute('data-testid', 'other');\n"
+                + "var div = document.createElement('div');\n"
+                + "div.innerHTML = '<span id=\"s1\" data-testid=\"item\">new</span>';\n"
+                + "document.getElementById('ctx').insertBefore(div, document.getElementById('p1'));");
+        assertEquals("s1,p2,p4", ids(driver.findElements(ByTestId.testId("item"))));
+        assertEquals("p1,r1", ids(driver.findElements(ByTestId.testId("other"))));
+
+        executor.executeScript("var ctx = document.getElementById('ctx'); ctx.parentNode.removeChild(ctx);");
+        assertEquals("p4", ids(driver.findElements(ByTestId.testId("item"))));
+        assertEquals("r1", ids(driver.findElements(ByTestId.testId("other"))));
+    }
+
+    @Test
+    public void customLocator() throws Exception {
+        final HtmlUnitDriver driver = (HtmlUnitDriver) loadPage2(HTML);
+        final By byText = new ByText("two");
+        try {
+            driver.getElementFinder().register(ByText.class, new FindByText());
+            assertEquals("p2", driver.findElement(byText).getAttribute("id"));
+            assertEquals("p2", driver.findElement(By.id("ctx")).findElement(byText).getAttribute("id"));
+            assertEquals(0, driver.findElement(By.id("p3")).findElements(byText).size());
+            assertTrue(driver.exists(byText));
+        }
+        finally {
+            driver.getElementFinder().unregister(ByText.class);
+        }
+
+        // falls back to the locator itself
+        assertEquals(Collections.emptyList(), driver.findElements(byText));
+    }
+
+    /**
+     * Locates the elements having the given text content; without a registered
+     * implementation nothing is found.
+     */
+    private static final class ByText extends By {
+        private final String text_;
+
+        ByText(final String text) {
+            text_ = text;
+        }
+
+        @Override
+        public List<WebElement> findElements(final SearchContext context) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static final class FindByText extends HtmlUnitElementLocator {
+
+        @Override
+        public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
+            return find(driver, ((HtmlPage) driver.getCurrentWindow().lastPage()).getBody(), locator);
+        }
+
+        @Override
+        public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
+            return find(getDriver(element), element.getElement(), locator);
+        }
+
+        private static List<WebElement> find(final HtmlUnitDriver driver, final DomElement scope, final By locator) {
+            final List<DomElement> found = new ArrayList<>();
+            for (final DomElement element : scope.getDomElementDescendants()) {
+                if (((ByText) locator).text_.equals(element.getTextContent())) {
+                    found.add(element);
+                }
+            }
+            return toWebElements(driver, found);
+        }
+    }
+}